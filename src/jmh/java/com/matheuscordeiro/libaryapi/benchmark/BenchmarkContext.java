@@ -0,0 +1,122 @@
+package com.matheuscordeiro.libaryapi.benchmark;
+
+import com.matheuscordeiro.libaryapi.LibaryApiApplication;
+import com.matheuscordeiro.libaryapi.service.LoanService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessagePreparator;
+
+import javax.mail.internet.MimeMessage;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Boots the application without the web layer against an in-memory H2 database seeded once per trial.
+ * Data sizes are JMH parameters, e.g. {@code -Djmh.include=BookServiceBenchmark} with
+ * {@code -p books=10000,1000000,10000000 -p loans=10000,1000000,10000000} passed to JMH.
+ * Large sizes need a bigger heap for the forked JVM ({@code -jvmArgsAppend -Xmx8g}). The schema is always the
+ * latest one, which the entities are validated against; {@code -p indexes=baseline,latest} compares its
+ * indexes with the baseline ones, where the query indexes added by the later migrations are dropped again.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+    private static final List<String> QUERY_INDEXES = Arrays.asList(
+            "ux_book_isbn", "idx_loan_book", "idx_loan_date_returned", "idx_loan_customer");
+
+    @Param({"10000"})
+    public int books;
+
+    @Param({"10000"})
+    public int loans;
+
+    @Param({"latest"})
+    public String indexes;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(LibaryApiApplication.class, MailStub.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.boot.admin.client.enabled=false",
+                        "spring.devtools.restart.enabled=false",
+                        "application.mail.outbox.poll-interval=86400000",
+                        "logging.file=",
+                        "logging.level.root=WARN")
+                .run();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seed(jdbcTemplate, books, loans);
+        if ("baseline".equals(indexes))
+            QUERY_INDEXES.forEach(index -> jdbcTemplate.execute("drop index " + index));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Book ids are 1..books and the id sequence is moved past them. A third of the loans are returned and
+     * loan dates are spread over the last 30 days, so roughly 85% of the open loans are late. A book with open
+     * loans points at the newest of them as its active loan. The late loans are counted already, and the book
+     * and customer counters match the seeded loans.
+     */
+    static void seed(JdbcTemplate jdbcTemplate, int books, int loans) {
+        jdbcTemplate.execute("insert into book (id, title, author, isbn) " +
+                "select x, 'Title ' || x, 'Author ' || mod(x, 1000), 'isbn-' || x " +
+                "from system_range(1, " + books + ")");
+        jdbcTemplate.execute("alter sequence book_seq restart with " + (books + 100));
+        jdbcTemplate.execute("insert into loan (customer, costumer_email, id_book, loan_date, returned) " +
+                "select 'Customer ' || mod(x, 10000), 'customer' || mod(x, 10000) || '@email.com', " +
+                "mod(x - 1, " + books + ") + 1, cast(dateadd('DAY', -mod(x, 30), current_date) as date), mod(x, 3) = 0 " +
+                "from system_range(1, " + loans + ")");
+        jdbcTemplate.execute("update book b set active_loan_id = " +
+                "(select max(l.id) from loan l where l.id_book = b.id and not l.returned)");
+        jdbcTemplate.execute("update loan set late_mark = 0 where not returned and loan_date <= date '"
+                + LoanService.lateUntil(LocalDate.now()) + "'");
+        jdbcTemplate.execute("update book b set " +
+                "times_borrowed = (select count(*) from loan l where l.id_book = b.id), " +
+                "late_count = (select count(l.late_mark) from loan l where l.id_book = b.id)");
+        jdbcTemplate.execute("insert into customer_loan_stats (customer, times_borrowed, on_loan, late_count) " +
+                "select customer, count(*), sum(case when returned then 0 else 1 end), count(late_mark) " +
+                "from loan group by customer");
+    }
+
+    /**
+     * Replaces the SMTP sender so the mail paths measure only the application side. The outbox dispatcher
+     * is parked with a day-long poll interval; SMTP throughput is measured by {@link MailSendBenchmark}.
+     */
+    static class MailStub {
+        @Bean
+        @Primary
+        public JavaMailSenderImpl javaMailSender() {
+            return new JavaMailSenderImpl() {
+                @Override
+                public void send(SimpleMailMessage... simpleMessages) {
+                }
+
+                @Override
+                public void send(MimeMessage... mimeMessages) {
+                }
+
+                @Override
+                public void send(MimeMessagePreparator... mimeMessagePreparators) {
+                }
+            };
+        }
+    }
+}
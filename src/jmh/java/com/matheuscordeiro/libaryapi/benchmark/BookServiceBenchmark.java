@@ -0,0 +1,62 @@
+package com.matheuscordeiro.libaryapi.benchmark;
+
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private BookService bookService;
+
+    @Setup
+    public void setUp(BenchmarkContext context) {
+        bookService = context.getBean(BookService.class);
+    }
+
+    @Benchmark
+    public Book save() {
+        long next = sequence.incrementAndGet();
+        return bookService.save(Book.builder()
+                .title("Benchmark " + next)
+                .author("Benchmark")
+                .isbn("benchmark-" + next)
+                .build());
+    }
+
+    @Benchmark
+    public Optional<Book> getById(BenchmarkContext context) {
+        return bookService.getById(ThreadLocalRandom.current().nextLong(1, context.books + 1));
+    }
+
+    @Benchmark
+    public Optional<Book> getBookByIsbn(BenchmarkContext context) {
+        return bookService.getBookByIsbn("isbn-" + ThreadLocalRandom.current().nextInt(1, context.books + 1));
+    }
+
+    @Benchmark
+    public Page<Book> findByTitle(BenchmarkContext context) {
+        Book filter = Book.builder().title("Title " + ThreadLocalRandom.current().nextInt(1, context.books + 1)).build();
+        return bookService.find(filter, PageRequest.of(0, 10));
+    }
+
+    @Benchmark
+    public Page<Book> findByAuthor() {
+        Book filter = Book.builder().author("Author " + ThreadLocalRandom.current().nextInt(0, 1000)).build();
+        return bookService.find(filter, PageRequest.of(0, 10));
+    }
+}
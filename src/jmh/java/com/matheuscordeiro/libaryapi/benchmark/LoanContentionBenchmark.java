@@ -0,0 +1,84 @@
+package com.matheuscordeiro.libaryapi.benchmark;
+
+import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import com.matheuscordeiro.libaryapi.service.LoanService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Eight threads check out and return a small set of freshly created books. Fewer books means more
+ * threads racing for the same one; a checkout that finds the book loaned counts as rejected. Every
+ * successful checkout is tracked per book while it is active, and the trial fails if a book ever
+ * had two active loans at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class LoanContentionBenchmark {
+
+    @Param({"1", "16", "1024"})
+    public int hotBooks;
+
+    private LoanService loanService;
+    private List<Book> books;
+    private AtomicIntegerArray active;
+    private final AtomicInteger doubleLoans = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkContext context) {
+        loanService = context.getBean(LoanService.class);
+        BookRepository bookRepository = context.getBean(BookRepository.class);
+        books = new ArrayList<>(hotBooks);
+        for (int i = 0; i < hotBooks; i++) {
+            books.add(bookRepository.save(Book.builder()
+                    .title("Contention " + i)
+                    .author("Benchmark")
+                    .isbn("contention-" + hotBooks + "-" + i)
+                    .build()));
+        }
+        active = new AtomicIntegerArray(hotBooks);
+    }
+
+    @TearDown(Level.Trial)
+    public void verify() {
+        if (doubleLoans.get() > 0)
+            throw new IllegalStateException(doubleLoans.get() + " books were loaned twice at the same time");
+    }
+
+    @Benchmark
+    public void checkoutAndReturn(Blackhole blackhole) {
+        int index = ThreadLocalRandom.current().nextInt(hotBooks);
+        Loan loan;
+        try {
+            loan = loanService.save(Loan.builder()
+                    .book(books.get(index))
+                    .customer("Benchmark")
+                    .costumerEmail("benchmark@email.com")
+                    .loanDate(LocalDate.now())
+                    .build());
+        } catch (BusinessException rejected) {
+            blackhole.consume(rejected);
+            return;
+        }
+        if (active.incrementAndGet(index) > 1)
+            doubleLoans.incrementAndGet();
+        active.decrementAndGet(index);
+        loan.setReturned(true);
+        loanService.update(loan);
+    }
+}
@@ -0,0 +1,70 @@
+package com.matheuscordeiro.libaryapi.benchmark;
+
+import com.matheuscordeiro.libaryapi.api.dto.LoanFilterDTO;
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import com.matheuscordeiro.libaryapi.service.LoanService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LoanServiceBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private LoanService loanService;
+    private BookRepository bookRepository;
+
+    @Setup
+    public void setUp(BenchmarkContext context) {
+        loanService = context.getBean(LoanService.class);
+        bookRepository = context.getBean(BookRepository.class);
+    }
+
+    /**
+     * Every loan goes to a freshly inserted book so the availability check always passes.
+     */
+    @Benchmark
+    public Loan save() {
+        long next = sequence.incrementAndGet();
+        Book book = bookRepository.save(Book.builder()
+                .title("Loan benchmark " + next)
+                .author("Benchmark")
+                .isbn("loan-benchmark-" + next)
+                .build());
+        return loanService.save(Loan.builder()
+                .book(book)
+                .customer("Benchmark")
+                .costumerEmail("benchmark@email.com")
+                .loanDate(LocalDate.now())
+                .build());
+    }
+
+    @Benchmark
+    public Page<Loan> findByCustomer() {
+        LoanFilterDTO filter = LoanFilterDTO.builder()
+                .customer("Customer " + ThreadLocalRandom.current().nextInt(0, 10000))
+                .build();
+        return loanService.find(filter, PageRequest.of(0, 10));
+    }
+
+    @Benchmark
+    public Page<Loan> findByIsbn(BenchmarkContext context) {
+        LoanFilterDTO filter = LoanFilterDTO.builder()
+                .isbn("isbn-" + ThreadLocalRandom.current().nextInt(1, context.books + 1))
+                .build();
+        return loanService.find(filter, PageRequest.of(0, 10));
+    }
+}
@@ -0,0 +1,80 @@
+package com.matheuscordeiro.libaryapi.benchmark;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.matheuscordeiro.libaryapi.service.mail.BulkMailSender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Sends one late-loan mail per recipient to an in-process GreenMail SMTP server, comparing a connection
+ * per mail ({@code JavaMailSender.send(SimpleMailMessage)}) with the pooled {@link BulkMailSender}.
+ * The score is the time to deliver the whole batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MailSendBenchmark {
+
+    @Param({"500"})
+    private int recipients;
+
+    @Param({"1", "4", "8"})
+    private int poolSize;
+
+    private GreenMail greenMail;
+    private JavaMailSenderImpl mailSender;
+    private BulkMailSender bulkMailSender;
+    private List<SimpleMailMessage> messages;
+
+    @Setup(Level.Trial)
+    public void start() {
+        greenMail = new GreenMail(new ServerSetup(3925, "localhost", ServerSetup.PROTOCOL_SMTP));
+        greenMail.start();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(3925);
+        bulkMailSender = new BulkMailSender(mailSender, new SimpleMeterRegistry(), poolSize, 100);
+        messages = IntStream.range(0, recipients)
+                .mapToObj(i -> {
+                    SimpleMailMessage message = new SimpleMailMessage();
+                    message.setFrom("mail@library-api.com");
+                    message.setTo("customer" + i + "@email.com");
+                    message.setSubject("Book with late loan");
+                    message.setText("Attention! You have a late job. Please return the book or as soon as possible.");
+                    return message;
+                })
+                .collect(Collectors.toList());
+    }
+
+    @TearDown(Level.Iteration)
+    public void purge() throws Exception {
+        greenMail.purgeEmailFromAllMailboxes();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws InterruptedException {
+        bulkMailSender.shutdown();
+        greenMail.stop();
+    }
+
+    @Benchmark
+    public void connectionPerMail() {
+        messages.forEach(mailSender::send);
+    }
+
+    @Benchmark
+    public List<Exception> pooledBulk() {
+        return bulkMailSender.sendAll(messages);
+    }
+}
@@ -0,0 +1,101 @@
+package com.matheuscordeiro.libaryapi.benchmark;
+
+import com.matheuscordeiro.libaryapi.api.dto.BookDTO;
+import com.matheuscordeiro.libaryapi.api.dto.LoanDTO;
+import com.matheuscordeiro.libaryapi.api.mapper.BookMapper;
+import com.matheuscordeiro.libaryapi.api.mapper.BookMapperImpl;
+import com.matheuscordeiro.libaryapi.api.mapper.LoanMapper;
+import com.matheuscordeiro.libaryapi.api.mapper.LoanMapperImpl;
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the reflective ModelMapper path the controllers used to take with the generated MapStruct mappers.
+ * The page benchmarks reproduce the per-row work of the loan list endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"100"})
+    private int pageSize;
+
+    private ModelMapper modelMapper;
+    private BookMapper bookMapper;
+    private LoanMapper loanMapper;
+
+    private Book book;
+    private BookDTO bookDTO;
+    private List<Loan> loans;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        bookMapper = new BookMapperImpl();
+        loanMapper = new LoanMapperImpl(bookMapper);
+
+        book = Book.builder().id(1L).title("Future").author("Junior").isbn("001").build();
+        bookDTO = BookDTO.builder().title("Future").author("Junior").isbn("001").build();
+        loans = new ArrayList<>(pageSize);
+        for (long i = 0; i < pageSize; i++) {
+            Book loanBook = Book.builder().id(i).title("Title " + i).author("Author " + i).isbn("isbn-" + i).build();
+            loans.add(Loan.builder()
+                    .id(i)
+                    .book(loanBook)
+                    .customer("Customer " + i)
+                    .costumerEmail("customer" + i + "@email.com")
+                    .loanDate(LocalDate.now())
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public BookDTO modelMapperBookToDto() {
+        return modelMapper.map(book, BookDTO.class);
+    }
+
+    @Benchmark
+    public BookDTO mapStructBookToDto() {
+        return bookMapper.toDto(book);
+    }
+
+    @Benchmark
+    public Book modelMapperDtoToBook() {
+        return modelMapper.map(bookDTO, Book.class);
+    }
+
+    @Benchmark
+    public Book mapStructDtoToBook() {
+        return bookMapper.toEntity(bookDTO);
+    }
+
+    @Benchmark
+    public List<LoanDTO> modelMapperLoanPage() {
+        return loans.stream()
+                .map(loan -> {
+                    BookDTO loanBook = modelMapper.map(loan.getBook(), BookDTO.class);
+                    LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
+                    loanDTO.setBook(loanBook);
+                    return loanDTO;
+                }).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LoanDTO> mapStructLoanPage() {
+        return loans.stream()
+                .map(loanMapper::toDto)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,78 @@
+package com.matheuscordeiro.libaryapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.matheuscordeiro.libaryapi.api.dto.BookDTO;
+import com.matheuscordeiro.libaryapi.api.dto.LoanDTO;
+import com.matheuscordeiro.libaryapi.api.dto.PageDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes one loan list response the way the endpoints used to (a {@link PageImpl} through a plain ObjectMapper)
+ * and the way they do now (a {@link PageDTO}, with and without Afterburner). CPU is the score, allocation comes
+ * from the gc profiler and the body size of each variant is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private ObjectMapper plain;
+    private ObjectMapper afterburner;
+
+    private Page<LoanDTO> page;
+    private PageDTO<LoanDTO> envelope;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        plain = new ObjectMapper();
+        afterburner = new ObjectMapper().registerModule(new AfterburnerModule());
+
+        List<LoanDTO> loans = new ArrayList<>(pageSize);
+        for (long i = 0; i < pageSize; i++) {
+            BookDTO book = BookDTO.builder().id(i).title("Title " + i).author("Author " + i).isbn("isbn-" + i).build();
+            loans.add(LoanDTO.builder()
+                    .id(i)
+                    .isbn(book.getIsbn())
+                    .costumer("Customer " + i)
+                    .email("customer" + i + "@email.com")
+                    .book(book)
+                    .build());
+        }
+        page = new PageImpl<>(loans, PageRequest.of(3, pageSize, Sort.by("id")), 1000);
+        envelope = PageDTO.of(page, loan -> loan);
+
+        System.out.printf("%nbody bytes with %d rows: page=%d envelope=%d%n",
+                pageSize, plain.writeValueAsBytes(page).length, afterburner.writeValueAsBytes(envelope).length);
+    }
+
+    @Benchmark
+    public byte[] springPage() throws JsonProcessingException {
+        return plain.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] envelope() throws JsonProcessingException {
+        return plain.writeValueAsBytes(envelope);
+    }
+
+    @Benchmark
+    public byte[] envelopeAfterburner() throws JsonProcessingException {
+        return afterburner.writeValueAsBytes(envelope);
+    }
+}
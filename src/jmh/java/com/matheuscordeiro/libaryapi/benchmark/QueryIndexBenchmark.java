@@ -0,0 +1,75 @@
+package com.matheuscordeiro.libaryapi.benchmark;
+
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import com.matheuscordeiro.libaryapi.model.repository.LoanRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the repository queries the migrations index, e.g. with
+ * {@code -p indexes=baseline,latest -p books=1000000 -p loans=1000000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class QueryIndexBenchmark {
+
+    private BookRepository bookRepository;
+    private LoanRepository loanRepository;
+    private int books;
+
+    @Setup
+    public void setUp(BenchmarkContext context) {
+        bookRepository = context.getBean(BookRepository.class);
+        loanRepository = context.getBean(LoanRepository.class);
+        books = context.books;
+    }
+
+    private long randomBookId() {
+        return ThreadLocalRandom.current().nextLong(1, books + 1);
+    }
+
+    @Benchmark
+    public Optional<Book> findByIsbn() {
+        return bookRepository.findByIsbn("isbn-" + randomBookId());
+    }
+
+    @Benchmark
+    public Page<Loan> findByBook() {
+        return loanRepository.findByBook(Book.builder().id(randomBookId()).build(), PageRequest.of(0, 10));
+    }
+
+    @Benchmark
+    public Page<Loan> findByCustomer() {
+        return loanRepository.findByCustomer(
+                "Customer " + ThreadLocalRandom.current().nextInt(0, 10000), PageRequest.of(0, 10));
+    }
+
+    @Benchmark
+    public Page<Loan> findByBookIsbn() {
+        return loanRepository.findByBookIsbn("isbn-" + randomBookId(), PageRequest.of(0, 10));
+    }
+
+    @Benchmark
+    public Page<Loan> findByBookIsbnOrCustomer() {
+        return loanRepository.findByBookIsbnOrCustomer("isbn-" + randomBookId(),
+                "Customer " + ThreadLocalRandom.current().nextInt(0, 10000), PageRequest.of(0, 10));
+    }
+
+    @Benchmark
+    public List<LoanRepository.LateLoan> lateLoansChunk() {
+        return loanRepository.findLateLoansAfter(LocalDate.now().minusDays(4), 0L, PageRequest.of(0, 500));
+    }
+}
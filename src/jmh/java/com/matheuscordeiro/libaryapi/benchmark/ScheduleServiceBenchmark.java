@@ -0,0 +1,30 @@
+package com.matheuscordeiro.libaryapi.benchmark;
+
+import com.matheuscordeiro.libaryapi.service.ScheduleService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One nightly late-loan run over the whole seeded loan table, up to the mails landing in the outbox.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScheduleServiceBenchmark {
+
+    private ScheduleService scheduleService;
+
+    @Setup
+    public void setUp(BenchmarkContext context) {
+        scheduleService = context.getBean(ScheduleService.class);
+    }
+
+    @Benchmark
+    public void sendMailToLateLoans() {
+        scheduleService.sendMailToLateLoans();
+    }
+}
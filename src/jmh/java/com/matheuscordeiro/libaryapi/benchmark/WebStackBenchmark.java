@@ -0,0 +1,94 @@
+package com.matheuscordeiro.libaryapi.benchmark;
+
+import com.matheuscordeiro.libaryapi.LibaryApiApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the book API over HTTP from the servlet stack (Tomcat + JDBC) or the {@code reactive} profile
+ * (Netty + R2DBC) and samples the latency of {@code GET /api/books/{id}} and of a paged title search.
+ * Concurrency is the JMH thread count, so compare the p99 columns of e.g. {@code -t 1}, {@code -t 64} and
+ * {@code -t 256} runs; past the Tomcat worker and JDBC pool sizes the servlet stack queues requests while the
+ * reactive one stays on its event loop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WebStackBenchmark {
+
+    @Param({"servlet", "reactive"})
+    public String stack;
+
+    @Param({"10000"})
+    public int books;
+
+    @Param({"10000"})
+    public int loans;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(LibaryApiApplication.class, BenchmarkContext.MailStub.class)
+                .profiles("reactive".equals(stack) ? new String[]{"reactive"} : new String[0])
+                .properties(
+                        "server.port=0",
+                        "spring.boot.admin.client.enabled=false",
+                        "spring.devtools.restart.enabled=false",
+                        "application.mail.outbox.poll-interval=86400000",
+                        "application.admission.search.capacity=1000000000",
+                        "application.admission.search.refill-per-second=1000000000",
+                        "application.admission.lookup.capacity=1000000000",
+                        "application.admission.lookup.refill-per-second=1000000000",
+                        "application.admission.book-search.max-concurrent=1000",
+                        "logging.file=",
+                        "logging.level.root=WARN")
+                .run();
+        BenchmarkContext.seed(context.getBean(JdbcTemplate.class), books, loans);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/books";
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getById() throws Exception {
+        long id = ThreadLocalRandom.current().nextLong(1, books + 1);
+        return send(baseUrl + "/" + id);
+    }
+
+    @Benchmark
+    public int findByTitle() throws Exception {
+        long id = ThreadLocalRandom.current().nextLong(1, books + 1);
+        return send(baseUrl + "?title=Title%20" + id + "&page=0&size=20");
+    }
+
+    private int send(String url) throws Exception {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200)
+            throw new IllegalStateException(url + " answered " + response.statusCode());
+        return response.body().length;
+    }
+}
@@ -2,6 +2,8 @@ package com.matheuscordeiro.libaryapi.api;
 
 import com.matheuscordeiro.libaryapi.api.exeception.ApiErrors;
 import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.exception.OverloadedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -9,6 +11,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.server.ResponseStatusException;
 
 @RestControllerAdvice
@@ -21,12 +24,25 @@ public class ApplicationControllerAdvice {
         return new ApiErrors(bindingResult);
     }
 
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiErrors handleReactiveValidationExceptions(WebExchangeBindException e) {
+        return new ApiErrors(e.getBindingResult());
+    }
+
     @ExceptionHandler(BusinessException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiErrors handleBusinessException(BusinessException e) {
         return new ApiErrors(e);
     }
 
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<ApiErrors> handleOverloadedException(OverloadedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ApiErrors(e));
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity handleResponseStatusException(ResponseStatusException e) {
         return new ResponseEntity(new ApiErrors(e), e.getStatus());
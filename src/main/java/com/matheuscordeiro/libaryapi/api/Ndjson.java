@@ -0,0 +1,47 @@
+package com.matheuscordeiro.libaryapi.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+public final class Ndjson {
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private Ndjson() {
+    }
+
+    /**
+     * Writes every value the source emits as one json line straight to the response, buffered but never collected.
+     */
+    public static <T> StreamingResponseBody stream(ObjectMapper objectMapper, Class<T> type, Consumer<Consumer<T>> source) {
+        ObjectWriter writer = objectMapper.writerFor(type)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return output -> {
+            OutputStream buffered = new BufferedOutputStream(output, 64 * 1024);
+            try {
+                source.accept(value -> writeLine(writer, buffered, value));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            buffered.flush();
+        };
+    }
+
+    private static void writeLine(ObjectWriter writer, OutputStream output, Object value) {
+        try {
+            writer.writeValue(output, value);
+            output.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
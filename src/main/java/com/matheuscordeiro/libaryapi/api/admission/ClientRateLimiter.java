@@ -0,0 +1,70 @@
+package com.matheuscordeiro.libaryapi.api.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.matheuscordeiro.libaryapi.exception.OverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Token buckets per client and route class, shared by the servlet interceptor and the reactive filter. Buckets
+ * of idle clients expire and their number is bounded. Only configured API keys name a client; any other key is
+ * charged to the remote address, so rotating made-up keys neither resets a budget nor evicts real clients.
+ */
+public class ClientRateLimiter {
+    public static final String REJECTED_COUNTER = "library.admission.rejected";
+
+    private final Map<RouteClass, Supplier<TokenBucket>> budgets;
+    private final Set<String> apiKeys;
+    private final Cache<String, TokenBucket> buckets;
+    private final Map<RouteClass, Counter> rejections = new EnumMap<>(RouteClass.class);
+
+    public ClientRateLimiter(Map<RouteClass, Supplier<TokenBucket>> budgets,
+                             Set<String> apiKeys,
+                             Duration idleExpiry,
+                             long maxClients,
+                             MeterRegistry meterRegistry) {
+        this.budgets = new EnumMap<>(budgets);
+        this.apiKeys = Set.copyOf(apiKeys);
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleExpiry)
+                .maximumSize(maxClients)
+                .build();
+        for (RouteClass route : RouteClass.values())
+            rejections.put(route, Counter.builder(REJECTED_COUNTER)
+                    .description("Requests shed by admission control")
+                    .tag("route", route.tag())
+                    .tag("reason", "rate_limit")
+                    .register(meterRegistry));
+        Gauge.builder("library.admission.clients", buckets, Cache::estimatedSize)
+                .description("Client token buckets currently held")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The client a request is charged to: its API key when the key is configured, otherwise its address.
+     */
+    public String client(String apiKey, String remoteAddress) {
+        return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "addr:" + remoteAddress;
+    }
+
+    /**
+     * Takes a token from the client's bucket for the route class.
+     *
+     * @throws OverloadedException when the bucket is empty
+     */
+    public void admit(RouteClass route, String client) {
+        TokenBucket bucket = buckets.get(route.tag() + ':' + client, key -> budgets.get(route).get());
+        if (bucket.tryAcquire())
+            return;
+        rejections.get(route).increment();
+        throw new OverloadedException("Too many requests", bucket.secondsUntilNextToken());
+    }
+}
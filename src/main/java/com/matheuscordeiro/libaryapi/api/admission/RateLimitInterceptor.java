@@ -0,0 +1,34 @@
+package com.matheuscordeiro.libaryapi.api.admission;
+
+import com.matheuscordeiro.libaryapi.exception.OverloadedException;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Charges every servlet API request to its client's bucket before the handler runs; an empty bucket ends the
+ * request with an {@link OverloadedException}. Clients are told apart by a configured API key header, falling back
+ * to the remote address.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private final String clientHeader;
+    private final ClientRateLimiter limiter;
+
+    public RateLimitInterceptor(String clientHeader, ClientRateLimiter limiter) {
+        this.clientHeader = clientHeader;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        limiter.admit(RouteClass.of(request.getMethod(), pattern), client(request));
+        return true;
+    }
+
+    private String client(HttpServletRequest request) {
+        return limiter.client(request.getHeader(clientHeader), request.getRemoteAddr());
+    }
+}
@@ -0,0 +1,50 @@
+package com.matheuscordeiro.libaryapi.api.admission;
+
+import com.matheuscordeiro.libaryapi.exception.OverloadedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * The reactive counterpart of {@link RateLimitInterceptor}. Filters run before handler mapping, so the route
+ * class comes from the path, and a rejection is answered here with an empty 429.
+ */
+public class RateLimitWebFilter implements WebFilter {
+    private static final String API = "/api/";
+
+    private final String clientHeader;
+    private final ClientRateLimiter limiter;
+
+    public RateLimitWebFilter(String clientHeader, ClientRateLimiter limiter) {
+        this.clientHeader = clientHeader;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().pathWithinApplication().value();
+        if (!path.startsWith(API))
+            return chain.filter(exchange);
+        try {
+            limiter.admit(RouteClass.ofPath(request.getMethodValue(), path), client(request));
+        } catch (OverloadedException e) {
+            exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            return exchange.getResponse().setComplete();
+        }
+        return chain.filter(exchange);
+    }
+
+    private String client(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        return limiter.client(request.getHeaders().getFirst(clientHeader),
+                address == null ? "unknown" : address.getHostString());
+    }
+}
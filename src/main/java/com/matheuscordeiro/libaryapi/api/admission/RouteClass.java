@@ -0,0 +1,71 @@
+package com.matheuscordeiro.libaryapi.api.admission;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The budgets a client's requests are charged against, so a flood of searches cannot use up its checkouts.
+ */
+public enum RouteClass {
+    SEARCH, WRITE, LOOKUP;
+
+    /**
+     * The class of every mapped read, by handler pattern. Literal patterns come before the ones with variables,
+     * so a path matches {@code /api/books/export} before {@code /api/books/{id}}. Reads that page through
+     * rows, like the loans of a book, search even when they name a resource.
+     */
+    static final Map<String, RouteClass> READS;
+
+    static {
+        Map<String, RouteClass> reads = new LinkedHashMap<>();
+        reads.put("/api/books", SEARCH);
+        reads.put("/api/books/export", SEARCH);
+        reads.put("/api/loans", SEARCH);
+        reads.put("/api/books/{id}", LOOKUP);
+        reads.put("/api/books/{id}/stats", LOOKUP);
+        reads.put("/api/books/{id}/loans", SEARCH);
+        reads.put("/api/loans/{id}", LOOKUP);
+        reads.put("/api/customers/{customer}/stats", LOOKUP);
+        READS = Collections.unmodifiableMap(reads);
+    }
+
+    private static final PathMatcher PATHS = new AntPathMatcher();
+
+    /**
+     * Anything but GET and HEAD is a write. Reads are classed by their handler pattern; a pattern missing from
+     * {@link #READS} is charged as a search.
+     */
+    public static RouteClass of(String method, String pattern) {
+        if (!isRead(method))
+            return WRITE;
+        return pattern == null ? SEARCH : READS.getOrDefault(pattern, SEARCH);
+    }
+
+    /**
+     * For callers that run before handler mapping: the path is matched against the patterns of {@link #READS},
+     * so both callers class a route the same way.
+     */
+    public static RouteClass ofPath(String method, String path) {
+        if (!isRead(method))
+            return WRITE;
+        String trimmed = path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        for (Map.Entry<String, RouteClass> read : READS.entrySet()) {
+            if (PATHS.match(read.getKey(), trimmed))
+                return read.getValue();
+        }
+        return SEARCH;
+    }
+
+    private static boolean isRead(String method) {
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method);
+    }
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
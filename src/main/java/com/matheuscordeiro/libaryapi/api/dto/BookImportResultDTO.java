@@ -0,0 +1,19 @@
+package com.matheuscordeiro.libaryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResultDTO {
+    public enum Status { CREATED, DUPLICATE, INVALID }
+
+    private int index;
+    private String isbn;
+    private Status status;
+    private Long id;
+}
@@ -0,0 +1,17 @@
+package com.matheuscordeiro.libaryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanReturnResultDTO {
+    public enum Status { RETURNED, ALREADY_RETURNED, NOT_FOUND }
+
+    private Long id;
+    private Status status;
+}
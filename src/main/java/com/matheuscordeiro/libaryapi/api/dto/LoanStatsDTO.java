@@ -0,0 +1,16 @@
+package com.matheuscordeiro.libaryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanStatsDTO {
+    private long timesBorrowed;
+    private long onLoan;
+    private long lateCount;
+}
@@ -0,0 +1,39 @@
+package com.matheuscordeiro.libaryapi.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The offset page envelope of the list endpoints, the counterpart of
+ * {@link com.matheuscordeiro.libaryapi.model.repository.keyset.CursorPage}. Only what a client pages with is
+ * written, instead of the pageable, sort and derived flags {@link Page} serializes. The total is only there
+ * when the list was counted, which the list endpoints do on request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageDTO<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+    private Long total;
+
+    /**
+     * @param slice a {@link Page} when the list was counted, so only then is the total filled
+     */
+    public static <T, R> PageDTO<R> of(Slice<T> slice, Function<? super T, ? extends R> converter) {
+        List<R> content = slice.getContent().stream().map(converter).collect(Collectors.toList());
+        Long total = slice instanceof Page ? ((Page<T>) slice).getTotalElements() : null;
+        return new PageDTO<>(content, slice.getNumber(), slice.getSize(), slice.hasNext(), total);
+    }
+}
@@ -0,0 +1,18 @@
+package com.matheuscordeiro.libaryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ReturnLoansDTO {
+    @NotEmpty
+    private List<Long> ids;
+}
@@ -1,6 +1,7 @@
 package com.matheuscordeiro.libaryapi.api.exeception;
 
 import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.exception.OverloadedException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -15,6 +16,10 @@ public class ApiErrors {
         this.errors= Arrays.asList(e.getMessage());
     }
 
+    public ApiErrors(OverloadedException e) {
+        this.errors= Arrays.asList(e.getMessage());
+    }
+
     public ApiErrors(ResponseStatusException e) {
         this.errors= Arrays.asList(e.getReason());
     }
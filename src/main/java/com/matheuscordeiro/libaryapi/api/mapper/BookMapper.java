@@ -0,0 +1,19 @@
+package com.matheuscordeiro.libaryapi.api.mapper;
+
+import com.matheuscordeiro.libaryapi.api.dto.BookDTO;
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface BookMapper {
+    BookDTO toDto(Book book);
+
+    @Mapping(target = "loans", ignore = true)
+    @Mapping(target = "activeLoanId", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "loansVersion", ignore = true)
+    @Mapping(target = "timesBorrowed", ignore = true)
+    @Mapping(target = "lateCount", ignore = true)
+    Book toEntity(BookDTO dto);
+}
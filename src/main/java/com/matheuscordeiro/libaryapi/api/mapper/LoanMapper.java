@@ -0,0 +1,15 @@
+package com.matheuscordeiro.libaryapi.api.mapper;
+
+import com.matheuscordeiro.libaryapi.api.dto.LoanDTO;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring", uses = BookMapper.class, injectionStrategy = InjectionStrategy.CONSTRUCTOR)
+public interface LoanMapper {
+    @Mapping(target = "isbn", source = "book.isbn")
+    @Mapping(target = "costumer", source = "customer")
+    @Mapping(target = "email", source = "costumerEmail")
+    LoanDTO toDto(Loan loan);
+}
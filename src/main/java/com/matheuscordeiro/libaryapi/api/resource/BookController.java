@@ -1,32 +1,52 @@
 package com.matheuscordeiro.libaryapi.api.resource;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matheuscordeiro.libaryapi.api.Ndjson;
 import com.matheuscordeiro.libaryapi.api.dto.BookDTO;
+import com.matheuscordeiro.libaryapi.api.dto.BookImportResultDTO;
 import com.matheuscordeiro.libaryapi.api.dto.LoanDTO;
+import com.matheuscordeiro.libaryapi.api.dto.LoanStatsDTO;
+import com.matheuscordeiro.libaryapi.api.dto.PageDTO;
 import com.matheuscordeiro.libaryapi.api.exeception.ApiErrors;
+import com.matheuscordeiro.libaryapi.api.mapper.BookMapper;
+import com.matheuscordeiro.libaryapi.api.mapper.LoanMapper;
 import com.matheuscordeiro.libaryapi.exception.BusinessException;
 import com.matheuscordeiro.libaryapi.model.entity.Book;
 import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.Cursor;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.CursorPage;
 import com.matheuscordeiro.libaryapi.service.BookService;
 import com.matheuscordeiro.libaryapi.service.LoanService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/books")
 @RequiredArgsConstructor
 @Api("Book API")
@@ -34,27 +54,60 @@ import java.util.stream.Collectors;
 public class BookController {
 
     private final BookService bookService;
-    private final ModelMapper modelMapper;
     private final LoanService loanService;
+    private final BookMapper bookMapper;
+    private final LoanMapper loanMapper;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @ApiOperation("Ceates a book")
     public BookDTO create(@RequestBody @Valid BookDTO dto){
         log.info("creating a book for isbn: {}", dto.getIsbn());
-        Book entity = modelMapper.map(dto, Book.class);
+        Book entity = bookMapper.toEntity(dto);
         entity = bookService.save(entity);
-        return modelMapper.map(entity, BookDTO.class);
+        return bookMapper.toDto(entity);
     }
 
+    @PostMapping(value = "import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("Imports a json array of books")
+    public List<BookImportResultDTO> importBooks(@RequestBody List<BookDTO> dtos) {
+        log.info("importing {} books", dtos.size());
+        return bookService.importBooks(dtos.stream().map(bookMapper::toEntity).collect(Collectors.toList()));
+    }
+
+    @PostMapping(value = "import", consumes = Ndjson.MEDIA_TYPE)
+    @ApiOperation("Imports newline delimited json books")
+    public List<BookImportResultDTO> importBooksNdjson(InputStream body) throws IOException {
+        try (MappingIterator<BookDTO> dtos = objectMapper.readerFor(BookDTO.class).readValues(body)) {
+            return importBooks(dtos.readAll());
+        }
+    }
+
+    @GetMapping(value = "export", produces = Ndjson.MEDIA_TYPE)
+    @ApiOperation("Exports every book as newline delimited json")
+    public ResponseEntity<StreamingResponseBody> export() {
+        log.info("exporting books");
+        StreamingResponseBody body = Ndjson.stream(objectMapper, BookDTO.class,
+                sink -> bookService.exportAll(book -> sink.accept(bookMapper.toDto(book))));
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(Ndjson.MEDIA_TYPE)).body(body);
+    }
+
+    /**
+     * The ETag is the book's version, so a matching If-None-Match is answered with 304 from a version
+     * lookup, without loading or mapping the book. Unconditional requests skip the lookup.
+     */
     @GetMapping("{id}")
     @ApiOperation("Obtais a book by id")
-    public BookDTO getById(@PathVariable Long id) {
+    public ResponseEntity<BookDTO> getById(@PathVariable Long id, WebRequest request) {
         log.info(" obtaining details for book id: {} ", id);
-        return bookService
-                .getById(id)
-                .map(book -> modelMapper.map(book, BookDTO.class))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Optional<String> tag = bookService.getVersions(id).map(versions -> bookTag(versions.getVersion()));
+            if (tag.isPresent() && isNotModified(request, tag.get()))
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag.get()).build();
+        }
+        Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return ResponseEntity.ok().eTag(bookTag(book.getVersion())).body(bookMapper.toDto(book));
     }
 
     @DeleteMapping("{id}")
@@ -71,38 +124,87 @@ public class BookController {
     public BookDTO update(@PathVariable Long id, @RequestBody @Valid BookDTO dto) {
         log.info(" updating book of id: {} ", id);
         return bookService.getById(id).map(book -> {
-            book.setTitle(dto.getTitle());
-            book.setAuthor(dto.getAuthor());
-            book = bookService.update(book);
-            return modelMapper.map(book, BookDTO.class);
+            Book changed = book.toBuilder()
+                    .title(dto.getTitle())
+                    .author(dto.getAuthor())
+                    .build();
+            return bookMapper.toDto(bookService.update(changed));
         }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     @GetMapping
     @ApiOperation("Lists books by params")
-    public Page<BookDTO> find(BookDTO dto, Pageable pageRequest) {
-        Book filter = modelMapper.map(dto, Book.class);
-        Page<Book> result = bookService.find(filter, pageRequest);
-        List<BookDTO> list = result.getContent()
-                .stream()
-                .map(entity -> modelMapper.map(entity, BookDTO.class))
-                .collect(Collectors.toList());
-        return new PageImpl<BookDTO>(list, pageRequest, result.getTotalElements());
+    public PageDTO<BookDTO> find(BookDTO dto,
+                                 @RequestParam(defaultValue = "false") boolean available,
+                                 @RequestParam(defaultValue = "false") boolean count,
+                                 Pageable pageRequest) {
+        Book filter = bookMapper.toEntity(dto);
+        Slice<Book> result = bookService.find(filter, available, pageRequest, count);
+        return PageDTO.of(result, bookMapper::toDto);
     }
 
+    @GetMapping(params = "cursor")
+    @ApiOperation("Lists books by params with a continuation cursor")
+    public CursorPage<BookDTO> findByCursor(BookDTO dto,
+                                            @RequestParam String cursor,
+                                            @RequestParam(defaultValue = "20") int size,
+                                            @RequestParam(defaultValue = "false") boolean count,
+                                            Sort sort) {
+        Book filter = bookMapper.toEntity(dto);
+        return bookService
+                .find(filter, Cursor.of(cursor, sort), size, count)
+                .map(bookMapper::toDto);
+    }
+
+    @GetMapping("{id}/stats")
+    @ApiOperation("Obtains the loan statistics of a book")
+    public LoanStatsDTO stats(@PathVariable Long id) {
+        return loanService.getBookStats(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Loans embed the book, so the ETag covers both the book's version and its loans version. The versions
+     * are read before the page, so a concurrent change can only make the body newer than its tag.
+     */
     @GetMapping("{id}/loans")
-    public Page<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable) {
+    public ResponseEntity<PageDTO<LoanDTO>> loansByBook(@PathVariable Long id,
+                                                        @RequestParam(defaultValue = "false") boolean count,
+                                                        Pageable pageable, WebRequest request) {
+        Optional<String> tag = bookService.getVersions(id).map(BookController::loansTag);
+        if (tag.isPresent() && isNotModified(request, tag.get()))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag.get()).build();
         Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        Page<Loan> result =  loanService.getLoansByBook(book, pageable);
-        List<LoanDTO> list = result.getContent()
-                .stream()
-                .map(loan -> {
-                    Book loanBook = loan.getBook();
-                    BookDTO bookDTO = modelMapper.map(loanBook, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
-                    return loanDTO;
-                }).collect(Collectors.toList());
-        return new PageImpl<LoanDTO>(list, pageable, result.getTotalElements());
+        Slice<Loan> result = loanService.getLoansByBook(book, pageable, count);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        tag.ifPresent(response::eTag);
+        return response.body(PageDTO.of(result, loanMapper::toDto));
+    }
+
+    /**
+     * Whether If-None-Match names the tag. The ETag header is only ever set on the returned entity, never
+     * through {@link WebRequest#checkNotModified(String)} as well, so responses carry it once.
+     */
+    private static boolean isNotModified(WebRequest request, String tag) {
+        String[] headers = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (headers == null)
+            return false;
+        for (String header : headers) {
+            for (String candidate : header.split(",")) {
+                String trimmed = candidate.trim();
+                if (trimmed.startsWith("W/"))
+                    trimmed = trimmed.substring(2);
+                if ("*".equals(trimmed) || tag.equals(trimmed))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static String bookTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static String loansTag(BookRepository.Versions versions) {
+        return "\"" + versions.getVersion() + "." + versions.getLoansVersion() + "\"";
     }
 }
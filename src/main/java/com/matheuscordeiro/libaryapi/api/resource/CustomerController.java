@@ -0,0 +1,29 @@
+package com.matheuscordeiro.libaryapi.api.resource;
+
+import com.matheuscordeiro.libaryapi.api.dto.LoanStatsDTO;
+import com.matheuscordeiro.libaryapi.service.LoanService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/customers")
+@RequiredArgsConstructor
+@Api("Customer API")
+public class CustomerController {
+    private final LoanService loanService;
+
+    @GetMapping("{customer}/stats")
+    @ApiOperation("Obtains the loan statistics of a customer")
+    public LoanStatsDTO stats(@PathVariable String customer) {
+        return loanService.getCustomerStats(customer).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+}
@@ -1,37 +1,49 @@
 package com.matheuscordeiro.libaryapi.api.resource;
 
-import com.matheuscordeiro.libaryapi.api.dto.BookDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.matheuscordeiro.libaryapi.api.Ndjson;
 import com.matheuscordeiro.libaryapi.api.dto.LoanDTO;
 import com.matheuscordeiro.libaryapi.api.dto.LoanFilterDTO;
+import com.matheuscordeiro.libaryapi.api.dto.LoanReturnResultDTO;
+import com.matheuscordeiro.libaryapi.api.dto.PageDTO;
+import com.matheuscordeiro.libaryapi.api.dto.ReturnLoansDTO;
 import com.matheuscordeiro.libaryapi.api.dto.ReturnedLoanDTO;
+import com.matheuscordeiro.libaryapi.api.mapper.LoanMapper;
 import com.matheuscordeiro.libaryapi.model.entity.Book;
 import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.Cursor;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.CursorPage;
 import com.matheuscordeiro.libaryapi.service.BookService;
 import com.matheuscordeiro.libaryapi.service.LoanService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.validation.Valid;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
-@RequestMapping("/api/books")
+@Profile("!reactive")
+@RequestMapping("/api/loans")
 @RequiredArgsConstructor
 @Api("Loan book API")
 public class LoanController {
     private final LoanService loanService;
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final LoanMapper loanMapper;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -60,20 +72,38 @@ public class LoanController {
         loanService.update(loan);
     }
 
+    @PatchMapping
+    @ApiOperation("Returns many loans at once")
+    public List<LoanReturnResultDTO> returnBooks(@RequestBody @Valid ReturnLoansDTO dto) {
+        return loanService.returnLoans(dto.getIds());
+    }
+
     @GetMapping
     @ApiOperation("Lists a loan")
-    public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageRequest) {
-        Page<Loan> result = loanService.find(dto, pageRequest);
-        List<LoanDTO> loans= result
-                .getContent()
-                .stream()
-                .map(entity -> {
-                    Book book = entity.getBook();
-                    BookDTO bookDTO = modelMapper.map(book, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
-                    return loanDTO;
-                }).collect(Collectors.toList());
-        return new PageImpl<LoanDTO>(loans, pageRequest, result.getTotalElements());
+    public PageDTO<LoanDTO> find(LoanFilterDTO dto,
+                                 @RequestParam(defaultValue = "false") boolean count,
+                                 Pageable pageRequest) {
+        Slice<Loan> result = loanService.find(dto, pageRequest, count);
+        return PageDTO.of(result, loanMapper::toDto);
+    }
+
+    @GetMapping(params = "cursor")
+    @ApiOperation("Lists loans with a continuation cursor")
+    public CursorPage<LoanDTO> findByCursor(LoanFilterDTO dto,
+                                            @RequestParam String cursor,
+                                            @RequestParam(defaultValue = "20") int size,
+                                            @RequestParam(defaultValue = "false") boolean count,
+                                            Sort sort) {
+        return loanService
+                .find(dto, Cursor.of(cursor, sort), size, count)
+                .map(loanMapper::toDto);
+    }
+
+    @GetMapping(value = "export", produces = Ndjson.MEDIA_TYPE)
+    @ApiOperation("Exports the loan history as newline delimited json")
+    public ResponseEntity<StreamingResponseBody> export() {
+        StreamingResponseBody body = Ndjson.stream(objectMapper, LoanDTO.class,
+                sink -> loanService.exportAll(loan -> sink.accept(loanMapper.toDto(loan))));
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(Ndjson.MEDIA_TYPE)).body(body);
     }
 }
@@ -0,0 +1,94 @@
+package com.matheuscordeiro.libaryapi.api.resource.reactive;
+
+import com.matheuscordeiro.libaryapi.api.dto.BookDTO;
+import com.matheuscordeiro.libaryapi.api.dto.LoanDTO;
+import com.matheuscordeiro.libaryapi.api.dto.PageDTO;
+import com.matheuscordeiro.libaryapi.api.mapper.BookMapper;
+import com.matheuscordeiro.libaryapi.api.mapper.LoanMapper;
+import com.matheuscordeiro.libaryapi.service.reactive.ReactiveBookService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+/**
+ * The book routes of {@link com.matheuscordeiro.libaryapi.api.resource.BookController} on WebFlux and R2DBC,
+ * active with the {@code reactive} profile. Import, export and cursor listing stay servlet only.
+ */
+@RestController
+@RequestMapping("/api/books")
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveBookController {
+
+    private final ReactiveBookService bookService;
+    private final BookMapper bookMapper;
+    private final LoanMapper loanMapper;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<BookDTO> create(@RequestBody @Valid BookDTO dto) {
+        log.info("creating a book for isbn: {}", dto.getIsbn());
+        return bookService.save(bookMapper.toEntity(dto)).map(bookMapper::toDto);
+    }
+
+    @GetMapping("{id}")
+    public Mono<BookDTO> getById(@PathVariable Long id) {
+        return bookService
+                .getById(id)
+                .map(bookMapper::toDto)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    @DeleteMapping("{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> delete(@PathVariable Long id) {
+        log.info(" deleting book of id: {} ", id);
+        return bookService
+                .getById(id)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(bookService::delete);
+    }
+
+    @PutMapping("{id}")
+    public Mono<BookDTO> update(@PathVariable Long id, @RequestBody @Valid BookDTO dto) {
+        log.info(" updating book of id: {} ", id);
+        return bookService
+                .getById(id)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(book -> {
+                    book.setTitle(dto.getTitle());
+                    book.setAuthor(dto.getAuthor());
+                    return bookService.update(book);
+                })
+                .map(bookMapper::toDto);
+    }
+
+    @GetMapping
+    public Mono<PageDTO<BookDTO>> find(BookDTO dto,
+                                       @RequestParam(defaultValue = "false") boolean available,
+                                       @RequestParam(defaultValue = "false") boolean count,
+                                       Pageable pageRequest) {
+        return bookService
+                .find(bookMapper.toEntity(dto), available, pageRequest, count)
+                .map(page -> PageDTO.of(page, bookMapper::toDto));
+    }
+
+    @GetMapping("{id}/loans")
+    public Mono<PageDTO<LoanDTO>> loansByBook(@PathVariable Long id,
+                                              @RequestParam(defaultValue = "false") boolean count,
+                                              Pageable pageable) {
+        return bookService
+                .getById(id)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(book -> bookService.getLoansByBook(book, pageable, count))
+                .map(page -> PageDTO.of(page, loanMapper::toDto));
+    }
+}
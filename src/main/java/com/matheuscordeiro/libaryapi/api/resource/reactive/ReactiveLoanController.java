@@ -0,0 +1,66 @@
+package com.matheuscordeiro.libaryapi.api.resource.reactive;
+
+import com.matheuscordeiro.libaryapi.api.dto.LoanDTO;
+import com.matheuscordeiro.libaryapi.api.dto.LoanFilterDTO;
+import com.matheuscordeiro.libaryapi.api.dto.PageDTO;
+import com.matheuscordeiro.libaryapi.api.dto.ReturnedLoanDTO;
+import com.matheuscordeiro.libaryapi.api.mapper.LoanMapper;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.service.reactive.ReactiveBookService;
+import com.matheuscordeiro.libaryapi.service.reactive.ReactiveLoanService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * The loan routes of {@link com.matheuscordeiro.libaryapi.api.resource.LoanController} on WebFlux and R2DBC,
+ * active with the {@code reactive} profile.
+ */
+@RestController
+@RequestMapping("/api/loans")
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveLoanController {
+    private final ReactiveLoanService loanService;
+    private final ReactiveBookService bookService;
+    private final LoanMapper loanMapper;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Long> create(@RequestBody LoanDTO dto) {
+        return bookService
+                .getBookByIsbn(dto.getIsbn())
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn")))
+                .flatMap(book -> loanService.save(Loan.builder()
+                        .book(book)
+                        .customer(dto.getCostumer())
+                        .loanDate(LocalDate.now())
+                        .build()))
+                .map(Loan::getId);
+    }
+
+    @PatchMapping("{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<Void> returnBook(@PathVariable Long id, @RequestBody ReturnedLoanDTO dto) {
+        return loanService
+                .getById(id)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(loan -> loanService.returnBook(loan, Boolean.TRUE.equals(dto.getReturned())))
+                .then();
+    }
+
+    @GetMapping
+    public Mono<PageDTO<LoanDTO>> find(LoanFilterDTO dto,
+                                       @RequestParam(defaultValue = "false") boolean count,
+                                       Pageable pageRequest) {
+        return loanService
+                .find(dto, pageRequest, count)
+                .map(page -> PageDTO.of(page, loanMapper::toDto));
+    }
+}
@@ -0,0 +1,76 @@
+package com.matheuscordeiro.libaryapi.config;
+
+import com.matheuscordeiro.libaryapi.api.admission.ClientRateLimiter;
+import com.matheuscordeiro.libaryapi.api.admission.RateLimitInterceptor;
+import com.matheuscordeiro.libaryapi.api.admission.RateLimitWebFilter;
+import com.matheuscordeiro.libaryapi.api.admission.RouteClass;
+import com.matheuscordeiro.libaryapi.api.admission.TokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Per-client budgets of the API, enforced by an interceptor on the servlet stack and by a filter on the
+ * reactive one. Searches get the smallest budget, so one integration flooding {@code GET /api/books} runs dry
+ * long before its checkouts would.
+ */
+@Configuration
+public class AdmissionConfig {
+
+    @Value("${application.admission.client-header:X-API-Key}")
+    private String clientHeader;
+
+    @Bean
+    public ClientRateLimiter clientRateLimiter(MeterRegistry meterRegistry,
+                                               @Value("${application.admission.api-keys:}") String[] apiKeys,
+                                               @Value("${application.admission.search.capacity:20}") long searchCapacity,
+                                               @Value("${application.admission.search.refill-per-second:5}") double searchRefill,
+                                               @Value("${application.admission.write.capacity:30}") long writeCapacity,
+                                               @Value("${application.admission.write.refill-per-second:10}") double writeRefill,
+                                               @Value("${application.admission.lookup.capacity:200}") long lookupCapacity,
+                                               @Value("${application.admission.lookup.refill-per-second:100}") double lookupRefill,
+                                               @Value("${application.admission.idle-expiry:10m}") Duration idleExpiry,
+                                               @Value("${application.admission.max-clients:100000}") long maxClients) {
+        Map<RouteClass, Supplier<TokenBucket>> budgets = new EnumMap<>(RouteClass.class);
+        budgets.put(RouteClass.SEARCH, () -> new TokenBucket(searchCapacity, searchRefill));
+        budgets.put(RouteClass.WRITE, () -> new TokenBucket(writeCapacity, writeRefill));
+        budgets.put(RouteClass.LOOKUP, () -> new TokenBucket(lookupCapacity, lookupRefill));
+        return new ClientRateLimiter(budgets,
+                Arrays.stream(apiKeys).map(String::trim).filter(StringUtils::hasText).collect(Collectors.toSet()),
+                idleExpiry, maxClients, meterRegistry);
+    }
+
+    /**
+     * Declared as a bean rather than implemented by this class, which keeps the configuration out of
+     * {@code @WebMvcTest} slices that have no meter registry.
+     */
+    @Bean
+    @Profile("!reactive")
+    public WebMvcConfigurer admissionConfigurer(ClientRateLimiter clientRateLimiter) {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(clientHeader, clientRateLimiter);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor).addPathPatterns("/api/**");
+            }
+        };
+    }
+
+    @Bean
+    @Profile("reactive")
+    public RateLimitWebFilter rateLimitWebFilter(ClientRateLimiter clientRateLimiter) {
+        return new RateLimitWebFilter(clientHeader, clientRateLimiter);
+    }
+}
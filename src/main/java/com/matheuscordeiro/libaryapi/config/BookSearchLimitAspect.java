@@ -0,0 +1,55 @@
+package com.matheuscordeiro.libaryapi.config;
+
+import com.matheuscordeiro.libaryapi.api.admission.ClientRateLimiter;
+import com.matheuscordeiro.libaryapi.exception.OverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounds the concurrent {@code BookService.find} calls, whose CONTAINING searches hold a connection the
+ * longest. The aspect runs outside the transaction, so a call over the limit is rejected at once instead of
+ * waiting for a connection the checkouts need.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class BookSearchLimitAspect {
+    private final Semaphore permits;
+    private final Counter rejected;
+
+    public BookSearchLimitAspect(MeterRegistry meterRegistry,
+                                 @Value("${application.admission.book-search.max-concurrent:8}") int maxConcurrent) {
+        this.permits = new Semaphore(maxConcurrent);
+        this.rejected = Counter.builder(ClientRateLimiter.REJECTED_COUNTER)
+                .description("Requests shed by admission control")
+                .tag("route", "book_search")
+                .tag("reason", "concurrency")
+                .register(meterRegistry);
+        Gauge.builder("library.admission.book_search.in_flight", permits, p -> maxConcurrent - p.availablePermits())
+                .description("Book searches currently running")
+                .register(meterRegistry);
+    }
+
+    @Around("this(com.matheuscordeiro.libaryapi.service.BookService) && execution(public * find(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new OverloadedException("Too many concurrent searches", 1);
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.matheuscordeiro.libaryapi.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches are created by Spring Boot from {@code spring.cache.cache-names} and
+ * {@code spring.cache.caffeine.spec}, which also registers their hit, miss and eviction metrics.
+ */
+@EnableCaching
+@Configuration
+public class CacheConfig {
+    public static final String BOOKS = "books";
+    public static final String BOOKS_BY_ISBN = "booksByIsbn";
+}
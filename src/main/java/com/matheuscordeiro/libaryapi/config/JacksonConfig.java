@@ -0,0 +1,23 @@
+package com.matheuscordeiro.libaryapi.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Module beans are picked up by the auto-configured ObjectMapper, which both the servlet and the reactive
+ * stack write responses with.
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Replaces reflective getter and setter calls with generated accessors, which is most of the per-row cost
+     * of writing the DTO pages.
+     */
+    @Bean
+    public Module afterburnerModule() {
+        return new AfterburnerModule();
+    }
+}
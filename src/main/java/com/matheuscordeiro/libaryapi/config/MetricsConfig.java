@@ -0,0 +1,25 @@
+package com.matheuscordeiro.libaryapi.config;
+
+import com.matheuscordeiro.libaryapi.service.metrics.ActiveLoanCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Business gauges. Operation timers and outcome counts come from {@link OperationMetricsAspect}; everything
+ * is scraped from {@code /actuator/prometheus}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Books with an active loan, read from the counter the loan services keep rather than the database.
+     */
+    @Bean
+    public MeterBinder activeLoansGauge(ActiveLoanCounter activeLoans) {
+        return registry -> Gauge.builder("library.loans.active", activeLoans, ActiveLoanCounter::get)
+                .description("Books currently on loan")
+                .register(registry);
+    }
+}
@@ -0,0 +1,120 @@
+package com.matheuscordeiro.libaryapi.config;
+
+import com.matheuscordeiro.libaryapi.exception.BookAlreadyLoanedException;
+import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.exception.DuplicateIsbnException;
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import com.matheuscordeiro.libaryapi.model.repository.LoanRepository;
+import com.matheuscordeiro.libaryapi.service.BookService;
+import com.matheuscordeiro.libaryapi.service.EmailService;
+import com.matheuscordeiro.libaryapi.service.LoanService;
+import com.matheuscordeiro.libaryapi.service.ScheduleService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Times every public service and repository call as {@code library.service} or {@code library.repository},
+ * tagged with the component, the method and the outcome. The outcome tag turns each timer's count into the
+ * outcome counter: {@code success}, {@code not_found} for an empty {@link Optional}, {@code duplicate_isbn}
+ * and {@code book_already_loaned} for the matching {@link BusinessException} subtypes, {@code rejected} for
+ * any other business rejection and {@code error} for everything else. Service timers publish percentile
+ * histograms between 1ms and 10s, so latency can be alerted on across instances from the Prometheus buckets;
+ * repository timers only publish a few fixed buckets. The tags stay component, method and outcome, which is
+ * what keeps the number of bucket series bounded.
+ */
+@Aspect
+@Component
+public class OperationMetricsAspect {
+    public static final String SERVICE_TIMER = "library.service";
+    public static final String REPOSITORY_TIMER = "library.repository";
+
+    private static final List<Class<?>> SERVICES = Arrays.asList(
+            BookService.class, LoanService.class, EmailService.class, ScheduleService.class);
+    private static final List<Class<?>> REPOSITORIES = Arrays.asList(BookRepository.class, LoanRepository.class);
+    private static final Map<Class<? extends BusinessException>, String> BUSINESS_OUTCOMES = new LinkedHashMap<>();
+    private static final Duration[] REPOSITORY_BUCKETS = {
+            Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(25), Duration.ofMillis(100), Duration.ofMillis(500)};
+
+    static {
+        BUSINESS_OUTCOMES.put(DuplicateIsbnException.class, "duplicate_isbn");
+        BUSINESS_OUTCOMES.put(BookAlreadyLoanedException.class, "book_already_loaned");
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    public OperationMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("(this(com.matheuscordeiro.libaryapi.service.BookService)" +
+            " || this(com.matheuscordeiro.libaryapi.service.LoanService)" +
+            " || this(com.matheuscordeiro.libaryapi.service.EmailService)" +
+            " || this(com.matheuscordeiro.libaryapi.service.ScheduleService))" +
+            " && execution(public * *(..)) && !execution(* java.lang.Object.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(Timer.builder(SERVICE_TIMER)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10)), component(joinPoint.getThis(), SERVICES), joinPoint);
+    }
+
+    /**
+     * Repositories are proxies over {@code SimpleJpaRepository}, so they are matched by the proxy's
+     * interface rather than the target; inherited methods like {@code findById} are timed too.
+     */
+    @Around("(this(com.matheuscordeiro.libaryapi.model.repository.BookRepository)" +
+            " || this(com.matheuscordeiro.libaryapi.model.repository.LoanRepository))" +
+            " && execution(public * *(..)) && !execution(* java.lang.Object.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(Timer.builder(REPOSITORY_TIMER).serviceLevelObjectives(REPOSITORY_BUCKETS),
+                component(joinPoint.getThis(), REPOSITORIES), joinPoint);
+    }
+
+    private Object time(Timer.Builder timer, String component, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = isEmpty(result) ? "not_found" : "success";
+            return result;
+        } catch (BusinessException e) {
+            outcome = businessOutcome(e);
+            throw e;
+        } finally {
+            sample.stop(timer
+                    .tag("component", component)
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String businessOutcome(BusinessException e) {
+        for (Map.Entry<Class<? extends BusinessException>, String> outcome : BUSINESS_OUTCOMES.entrySet())
+            if (outcome.getKey().isInstance(e))
+                return outcome.getValue();
+        return "rejected";
+    }
+
+    private static boolean isEmpty(Object result) {
+        return result instanceof Optional && !((Optional<?>) result).isPresent();
+    }
+
+    private static String component(Object proxy, List<Class<?>> types) {
+        for (Class<?> type : types)
+            if (type.isInstance(proxy))
+                return type.getSimpleName();
+        return proxy.getClass().getSimpleName();
+    }
+}
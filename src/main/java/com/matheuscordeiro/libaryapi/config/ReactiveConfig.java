@@ -0,0 +1,48 @@
+package com.matheuscordeiro.libaryapi.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.connectionfactory.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.StringUtils;
+
+/**
+ * R2DBC is only wired with the {@code reactive} profile. Its auto-configuration is excluded for every profile,
+ * because an auto-configured ConnectionFactory makes the JDBC DataSource back off, and JPA, Flyway and the
+ * mail outbox need that DataSource in both modes.
+ * <p>
+ * The R2DBC transaction manager is kept out of the context as well: a second transaction manager bean would
+ * make every {@code @Transactional} on the JPA services ambiguous. Reactive code demarcates its transactions
+ * with this operator instead.
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class ReactiveConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionFactory(R2dbcProperties properties) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(properties.getUrl()).mutate();
+        if (StringUtils.hasText(properties.getUsername()))
+            options.option(ConnectionFactoryOptions.USER, properties.getUsername());
+        if (StringUtils.hasText(properties.getPassword()))
+            options.option(ConnectionFactoryOptions.PASSWORD, properties.getPassword());
+        ConnectionFactory connectionFactory = ConnectionFactories.get(options.build());
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .maxSize(properties.getPool().getMaxSize())
+                .build());
+    }
+
+    @Bean
+    public TransactionalOperator transactionalOperator(ConnectionFactory connectionFactory) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+}
@@ -0,0 +1,51 @@
+package com.matheuscordeiro.libaryapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out replica connections inside read-only transactions and primary connections everywhere else,
+ * counting each checkout in {@code library.datasource.connections} tagged with its route.
+ * The read-only flag is only known once the transaction has started, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+
+    public ReadOnlyRoutingDataSource(DataSource primary, DataSource replica, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.put(REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.primaryConnections = connections(meterRegistry, PRIMARY);
+        this.replicaConnections = connections(meterRegistry, REPLICA);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            replicaConnections.increment();
+            return REPLICA;
+        }
+        primaryConnections.increment();
+        return PRIMARY;
+    }
+
+    private static Counter connections(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("library.datasource.connections")
+                .description("Connections handed out by the read/write routing data source")
+                .tag("route", route)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,7 @@
+package com.matheuscordeiro.libaryapi.exception;
+
+public class BookAlreadyLoanedException extends BusinessException {
+    public BookAlreadyLoanedException() {
+        super("Book already loaned");
+    }
+}
@@ -0,0 +1,7 @@
+package com.matheuscordeiro.libaryapi.exception;
+
+public class DuplicateIsbnException extends BusinessException {
+    public DuplicateIsbnException() {
+        super("Isbn already registered.");
+    }
+}
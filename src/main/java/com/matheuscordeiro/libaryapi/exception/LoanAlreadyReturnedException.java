@@ -0,0 +1,7 @@
+package com.matheuscordeiro.libaryapi.exception;
+
+public class LoanAlreadyReturnedException extends BusinessException {
+    public LoanAlreadyReturnedException() {
+        super("Loan already returned");
+    }
+}
@@ -0,0 +1,17 @@
+package com.matheuscordeiro.libaryapi.exception;
+
+/**
+ * A request shed instead of queued, answered with 429 and a Retry-After of the given seconds.
+ */
+public class OverloadedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public OverloadedException(String msg, long retryAfterSeconds) {
+        super(msg);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -6,7 +6,7 @@ import javax.persistence.*;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
@@ -14,7 +14,8 @@ import java.util.List;
 public class Book {
     @Id
     @Column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
 
     @Column
@@ -26,6 +27,42 @@ public class Book {
     @Column
     private String isbn;
 
+    /**
+     * Id of the loan currently holding the book, null when it is available. Only written by the
+     * conditional updates in {@link com.matheuscordeiro.libaryapi.model.repository.BookRepository}.
+     */
+    @Column(name = "active_loan_id", updatable = false)
+    private Long activeLoanId;
+
+    /**
+     * Bumped by Hibernate on every update of the book's own columns.
+     */
+    @Version
+    @Column
+    private long version;
+
+    /**
+     * Bumped by the loan updates in {@link com.matheuscordeiro.libaryapi.model.repository.BookRepository}
+     * whenever a loan of this book is created or changed.
+     */
+    @Column(name = "loans_version", insertable = false, updatable = false)
+    private long loansVersion;
+
+    /**
+     * Loan counters, kept by the same conditional updates as the active loan.
+     */
+    @Column(name = "times_borrowed", insertable = false, updatable = false)
+    private long timesBorrowed;
+
+    @Column(name = "late_count", insertable = false, updatable = false)
+    private long lateCount;
+
+    /**
+     * Never fetched by the endpoints. Left out of equals, hashCode and toString so using a detached book does
+     * not touch the lazy collection.
+     */
     @OneToMany(mappedBy = "book")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     List<Loan> loans;
 }
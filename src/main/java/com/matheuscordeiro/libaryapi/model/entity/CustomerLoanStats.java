@@ -0,0 +1,38 @@
+package com.matheuscordeiro.libaryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Loan counters of a customer. Rows are only written by the statements in
+ * {@link com.matheuscordeiro.libaryapi.model.repository.LoanStatsSql}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "customer_loan_stats")
+public class CustomerLoanStats {
+    @Id
+    @Column
+    private String customer;
+
+    @Column(name = "times_borrowed")
+    private long timesBorrowed;
+
+    @Column(name = "on_loan")
+    private long onLoan;
+
+    @Column(name = "late_count")
+    private long lateCount;
+}
@@ -13,7 +13,13 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@NamedEntityGraph(name = Loan.WITH_BOOK, attributeNodes = @NamedAttributeNode("book"))
 public class Loan {
+    /**
+     * Fetch plan of every endpoint that writes loans with their book; the others only need the book's id.
+     */
+    public static final String WITH_BOOK = "Loan.withBook";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -25,7 +31,7 @@ public class Loan {
     private String costumerEmail;
 
     @JoinColumn(name = "id_book")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Book book;
 
     @Column
@@ -33,4 +39,10 @@ public class Loan {
 
     @Column
     private Boolean returned;
+
+    /**
+     * Set once the loan has been counted late, see {@link com.matheuscordeiro.libaryapi.model.repository.LoanStatsSql}.
+     */
+    @Column(name = "late_mark", insertable = false, updatable = false)
+    private Long lateMark;
 }
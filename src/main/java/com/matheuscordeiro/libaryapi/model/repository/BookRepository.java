@@ -2,11 +2,93 @@ package com.matheuscordeiro.libaryapi.model.repository;
 
 import com.matheuscordeiro.libaryapi.model.entity.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>, BookRepositoryCustom {
+    interface LoanStats {
+        long getTimesBorrowed();
+
+        Long getActiveLoanId();
+
+        long getLateCount();
+
+        default long getOnLoan() {
+            return getActiveLoanId() == null ? 0 : 1;
+        }
+    }
+
+    interface Versions {
+        long getVersion();
+
+        long getLoansVersion();
+    }
 
-public interface BookRepository extends JpaRepository<Book, Long> {
     boolean existsByIsbn(String isbn);
 
     Optional<Book> findByIsbn(String isbn);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select b.isbn from Book b")
+    Stream<String> streamAllIsbns();
+
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    @Query("select case when count(b) > 0 then true else false end from Book b where b.id = :id and b.activeLoanId is null")
+    boolean isAvailable(@Param("id") Long id);
+
+    long countByActiveLoanIdIsNotNull();
+
+    @Query("select b.version as version, b.loansVersion as loansVersion from Book b where b.id = :id")
+    Optional<Versions> findVersionsById(@Param("id") Long id);
+
+    @Query("select b.timesBorrowed as timesBorrowed, b.activeLoanId as activeLoanId, b.lateCount as lateCount from Book b where b.id = :id")
+    Optional<LoanStats> findLoanStatsById(@Param("id") Long id);
+
+    /**
+     * Hands the book to the loan only if nobody holds it; returns 0 when another loan got there first.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.activeLoanId = :loanId, b.loansVersion = b.loansVersion + 1, b.timesBorrowed = b.timesBorrowed + 1" +
+            " where b.id = :id and b.activeLoanId is null")
+    int markLoaned(@Param("id") Long id, @Param("loanId") Long loanId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.activeLoanId = null where b.id = :id and b.activeLoanId = :loanId")
+    int release(@Param("id") Long id, @Param("loanId") Long loanId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.loansVersion = b.loansVersion + 1 where b.id = :id")
+    int touchLoans(@Param("id") Long id);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.activeLoanId = null where b.activeLoanId in :loanIds")
+    int releaseAll(@Param("loanIds") Collection<Long> loanIds);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.loansVersion = b.loansVersion + 1 where b.id in :ids")
+    int touchLoansAll(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = LoanStatsSql.ADD_BOOK_LATE, nativeQuery = true)
+    int addLate(@Param("mark") long mark);
 }
@@ -0,0 +1,20 @@
+package com.matheuscordeiro.libaryapi.model.repository;
+
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.Cursor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface BookRepositoryCustom {
+    List<Book> findAll(Specification<Book> spec, Cursor cursor, int limit);
+
+    Slice<Book> findSlice(Specification<Book> spec, Pageable pageable);
+
+    void forEachInOrder(Consumer<Book> action);
+
+    void persistAll(List<Book> books);
+}
@@ -0,0 +1,73 @@
+package com.matheuscordeiro.libaryapi.model.repository;
+
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.Cursor;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.KeysetQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${application.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    public List<Book> findAll(Specification<Book> spec, Cursor cursor, int limit) {
+        return KeysetQuery.find(entityManager, Book.class, spec, cursor, limit);
+    }
+
+    @Override
+    public Slice<Book> findSlice(Specification<Book> spec, Pageable pageable) {
+        return SliceQuery.find(entityManager, Book.class, spec, pageable);
+    }
+
+    /**
+     * Flushes and clears once per JDBC batch so inserts go out batched and the persistence context stays small.
+     */
+    @Override
+    @Transactional
+    public void persistAll(List<Book> books) {
+        for (int i = 0; i < books.size(); i++) {
+            entityManager.persist(books.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Reads the whole table through a forward-only cursor, detaching rows once handed over so memory stays flat.
+     */
+    @Override
+    public void forEachInOrder(Consumer<Book> action) {
+        try (Stream<Book> rows = entityManager.createQuery("select b from Book b order by b.id", Book.class)
+                .setHint(HINT_FETCH_SIZE, fetchSize)
+                .setHint(HINT_READONLY, true)
+                .getResultStream()) {
+            rows.forEach(book -> {
+                action.accept(book);
+                entityManager.detach(book);
+            });
+        }
+    }
+}
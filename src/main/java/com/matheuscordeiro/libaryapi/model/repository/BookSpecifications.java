@@ -0,0 +1,26 @@
+package com.matheuscordeiro.libaryapi.model.repository;
+
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import org.springframework.data.domain.Example;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+public final class BookSpecifications {
+
+    private BookSpecifications() {
+    }
+
+    public static Specification<Book> matching(Example<Book> example) {
+        return (root, query, cb) -> QueryByExamplePredicateBuilder.getPredicate(root, cb, example);
+    }
+
+    public static Specification<Book> available() {
+        return (root, query, cb) -> cb.isNull(root.get("activeLoanId"));
+    }
+
+    public static Specification<Book> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+}
@@ -0,0 +1,30 @@
+package com.matheuscordeiro.libaryapi.model.repository;
+
+import com.matheuscordeiro.libaryapi.model.entity.CustomerLoanStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+public interface CustomerLoanStatsRepository extends JpaRepository<CustomerLoanStats, String> {
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = LoanStatsSql.RECORD_CUSTOMER_LOAN, nativeQuery = true)
+    int recordLoan(@Param("customer") String customer);
+
+    /**
+     * Takes the given loans off their customers' on loan count; the loans must all be open.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = LoanStatsSql.RECORD_CUSTOMER_RETURNS, nativeQuery = true)
+    int recordReturns(@Param("ids") Collection<Long> loanIds);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = LoanStatsSql.ADD_CUSTOMER_LATE, nativeQuery = true)
+    int addLate(@Param("mark") long mark);
+}
@@ -0,0 +1,53 @@
+package com.matheuscordeiro.libaryapi.model.repository;
+
+import com.matheuscordeiro.libaryapi.model.entity.EmailOutbox;
+import com.matheuscordeiro.libaryapi.model.entity.EmailOutbox.Status;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    @Query("select e.id from EmailOutbox e where e.status = :status and e.nextAttemptAt <= :now order by e.id")
+    List<Long> findDueIds(@Param("status") Status status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Moves the still pending rows among the ids to SENDING under the token; rows another dispatcher
+     * claimed first are left alone, so only the rows returned by {@link #findByClaimToken} are owned.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update EmailOutbox e set e.status = :sending, e.claimToken = :token, e.claimedAt = :now" +
+            " where e.id in :ids and e.status = :pending")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now,
+              @Param("pending") Status pending, @Param("sending") Status sending);
+
+    List<EmailOutbox> findByClaimToken(String claimToken);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update EmailOutbox e set e.status = :sent, e.sentAt = :now, e.claimToken = null where e.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now, @Param("sent") Status sent);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update EmailOutbox e set e.status = :status, e.attempts = e.attempts + 1, e.nextAttemptAt = :nextAttemptAt," +
+            " e.lastError = :error, e.claimToken = null where e.id = :id")
+    int reschedule(@Param("id") Long id, @Param("status") Status status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update EmailOutbox e set e.status = :pending, e.claimToken = null" +
+            " where e.status = :sending and e.claimedAt < :claimedBefore")
+    int releaseStale(@Param("claimedBefore") LocalDateTime claimedBefore,
+                     @Param("sending") Status sending, @Param("pending") Status pending);
+
+    long countByStatus(Status status);
+}
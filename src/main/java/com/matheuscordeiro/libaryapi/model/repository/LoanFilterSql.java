@@ -0,0 +1,15 @@
+package com.matheuscordeiro.libaryapi.model.repository;
+
+/**
+ * The loan filter by isbn or customer, shared by the JPA repository and the reactive one. A single OR over
+ * the two columns leaves the database one index to read through, so each side is its own indexed select
+ * and the union of their ids is looked up by primary key.
+ */
+public final class LoanFilterSql {
+    public static final String ISBN_OR_CUSTOMER = "l.id in (" +
+            "select id from loan where id_book = (select id from book where isbn = :isbn)" +
+            " union select id from loan where customer = :customer)";
+
+    private LoanFilterSql() {
+    }
+}
@@ -4,23 +4,105 @@ import com.matheuscordeiro.libaryapi.model.entity.Book;
 import com.matheuscordeiro.libaryapi.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
-public interface LoanRepository extends JpaRepository<Loan, Long> {
-    @Query(value = "select case when ( count(l.id) > 0 ) then true else false end" +
-            "from Loan l where l.book = :book and ( l.returned is null or l.returned is false )")
-    boolean existsByBookAndNotReturned(@Param("book") Book book);
-    @Query( value = "select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer =:customer")
-    Page<Loan> findByBookIsbnOrCustomer(String isbn, String customer, Pageable pageRequest);
+public interface LoanRepository extends JpaRepository<Loan, Long>, JpaSpecificationExecutor<Loan>, LoanRepositoryCustom {
+    /**
+     * The isbn is resolved to the book key through its unique index, so the loans are read through
+     * idx_loan_book without joining book. An unknown isbn matches nothing.
+     */
+    @EntityGraph(Loan.WITH_BOOK)
+    @Query(value = "select l from Loan l where l.book.id = (select b.id from Book b where b.isbn = :isbn)",
+            countQuery = "select count(l) from Loan l where l.book.id = (select b.id from Book b where b.isbn = :isbn)")
+    Page<Loan> findByBookIsbn(@Param("isbn") String isbn, Pageable pageRequest);
+
+    @EntityGraph(Loan.WITH_BOOK)
+    @Query("select l from Loan l where l.book.id = (select b.id from Book b where b.isbn = :isbn)")
+    Slice<Loan> findSliceByBookIsbn(@Param("isbn") String isbn, Pageable pageRequest);
+
+    @EntityGraph(Loan.WITH_BOOK)
+    Page<Loan> findByCustomer(String customer, Pageable pageRequest);
+
+    @EntityGraph(Loan.WITH_BOOK)
+    Slice<Loan> findSliceByCustomer(String customer, Pageable pageRequest);
+
+    @Override
+    @EntityGraph(Loan.WITH_BOOK)
+    Page<Loan> findAll(Pageable pageable);
 
+    @EntityGraph(Loan.WITH_BOOK)
+    @Query("select l from Loan l")
+    Slice<Loan> findSlice(Pageable pageable);
+
+    @EntityGraph(Loan.WITH_BOOK)
     Page<Loan> findByBook(Book book, Pageable pageable);
 
+    @EntityGraph(Loan.WITH_BOOK)
+    Slice<Loan> findSliceByBook(Book book, Pageable pageable);
+
+    @EntityGraph(Loan.WITH_BOOK)
     @Query("select l from Loan l where l.loanDate <= :threeDaysAgo and ( l.returned is null or l.returned is false )")
     List<Loan> findByLoanDateLessThanAndNotReturned(@Param("threeDaysAgo") LocalDate threeDaysAgo);
 
+    @Query("select l.id as id, l.costumerEmail as costumerEmail from Loan l" +
+            " where l.id > :afterId and l.loanDate <= :loanedUntil and ( l.returned is null or l.returned is false )" +
+            " order by l.id")
+    List<LateLoan> findLateLoansAfter(@Param("loanedUntil") LocalDate loanedUntil, @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Locks the loans until the end of the transaction, so the states reported by a batch return are the
+     * ones the following {@link #markReturned} acts on.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l.id as id, l.returned as returned, l.book.id as bookId from Loan l where l.id in :ids")
+    List<LoanState> findStatesForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Loan l set l.returned = true where l.id in :ids and ( l.returned is null or l.returned = false )")
+    int markReturned(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Stamps the open loans due on or before the date that were not counted late yet.
+     */
+    @Query(value = LoanStatsSql.NEXT_LATE_MARK, nativeQuery = true)
+    long nextLateMark();
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = LoanStatsSql.MARK_LATE, nativeQuery = true)
+    int markLate(@Param("until") LocalDate until, @Param("mark") long mark);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = LoanStatsSql.MARK_LATE_IN, nativeQuery = true)
+    int markLateIn(@Param("ids") Collection<Long> ids, @Param("until") LocalDate until, @Param("mark") long mark);
+
+    interface LateLoan {
+        Long getId();
+
+        String getCostumerEmail();
+    }
+
+    interface LoanState {
+        Long getId();
+
+        Boolean getReturned();
+
+        Long getBookId();
+    }
 }
@@ -0,0 +1,25 @@
+package com.matheuscordeiro.libaryapi.model.repository;
+
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.Cursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface LoanRepositoryCustom {
+    List<Loan> findAll(Specification<Loan> spec, Cursor cursor, int limit);
+
+    void forEachInOrder(Consumer<Loan> action);
+
+    Page<Loan> findByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable);
+
+    Slice<Loan> findSliceByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable);
+
+    List<Loan> findByBookIsbnOrCustomer(String isbn, String customer, Cursor cursor, int limit);
+
+    long countByBookIsbnOrCustomer(String isbn, String customer);
+}
@@ -0,0 +1,182 @@
+package com.matheuscordeiro.libaryapi.model.repository;
+
+import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.Cursor;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.KeysetQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public class LoanRepositoryCustomImpl implements LoanRepositoryCustom {
+    private static final Map<String, String> SORT_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        SORT_COLUMNS.put("id", "l.id");
+        SORT_COLUMNS.put("customer", "l.customer");
+        SORT_COLUMNS.put("costumerEmail", "l.costumer_email");
+        SORT_COLUMNS.put("loanDate", "l.loan_date");
+        SORT_COLUMNS.put("returned", "l.returned");
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${application.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Override
+    public List<Loan> findAll(Specification<Loan> spec, Cursor cursor, int limit) {
+        return KeysetQuery.find(entityManager, Loan.class, spec, cursor, limit);
+    }
+
+    /**
+     * Reads the whole table through a forward-only cursor, detaching rows once handed over so memory stays flat.
+     */
+    @Override
+    public void forEachInOrder(Consumer<Loan> action) {
+        try (Stream<Loan> rows = entityManager.createQuery("select l from Loan l join fetch l.book order by l.id", Loan.class)
+                .setHint(HINT_FETCH_SIZE, fetchSize)
+                .setHint(HINT_READONLY, true)
+                .getResultStream()) {
+            rows.forEach(loan -> {
+                action.accept(loan);
+                entityManager.detach(loan);
+                entityManager.detach(loan.getBook());
+            });
+        }
+    }
+
+    /**
+     * Reads the page of ids through {@link LoanFilterSql#ISBN_OR_CUSTOMER}, then the loans of the page with
+     * their books by primary key. The count only runs when the page does not already tell the total; the
+     * slice never counts.
+     */
+    @Override
+    public Page<Loan> findByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable) {
+        List<Long> ids = findIds(isbn, customer, pageable, 0);
+        return PageableExecutionUtils.getPage(findWithBooks(ids), pageable, () -> countByBookIsbnOrCustomer(isbn, customer));
+    }
+
+    /**
+     * The keyset variant: ids of the union after the cursor, in the cursor's order with nulls below every
+     * value. The union's rows are sorted whatever the order, so nulls are placed with NULLS FIRST or LAST.
+     */
+    @Override
+    public List<Loan> findByBookIsbnOrCustomer(String isbn, String customer, Cursor cursor, int limit) {
+        Map<String, Object> parameters = new HashMap<>();
+        Query idsQuery = bind(entityManager.createNativeQuery("select l.id from loan l where "
+                + LoanFilterSql.ISBN_OR_CUSTOMER + after(cursor, parameters) + orderBy(cursor)), isbn, customer);
+        parameters.forEach(idsQuery::setParameter);
+        List<Long> ids = ((List<?>) idsQuery.setMaxResults(limit).getResultList()).stream()
+                .map(id -> ((Number) id).longValue())
+                .collect(Collectors.toList());
+        return findWithBooks(ids);
+    }
+
+    @Override
+    public long countByBookIsbnOrCustomer(String isbn, String customer) {
+        return ((Number) bind(entityManager.createNativeQuery("select count(*) from loan l where "
+                + LoanFilterSql.ISBN_OR_CUSTOMER), isbn, customer).getSingleResult()).longValue();
+    }
+
+    @Override
+    public Slice<Loan> findSliceByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable) {
+        return SliceQuery.of(findWithBooks(findIds(isbn, customer, pageable, 1)), pageable);
+    }
+
+    private List<Long> findIds(String isbn, String customer, Pageable pageable, int lookAhead) {
+        Query idsQuery = bind(entityManager.createNativeQuery("select l.id from loan l where "
+                + LoanFilterSql.ISBN_OR_CUSTOMER + orderBy(pageable.getSort())), isbn, customer);
+        if (pageable.isPaged())
+            idsQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize() + lookAhead);
+        return ((List<?>) idsQuery.getResultList()).stream()
+                .map(id -> ((Number) id).longValue())
+                .collect(Collectors.toList());
+    }
+
+    private List<Loan> findWithBooks(List<Long> ids) {
+        if (ids.isEmpty())
+            return Collections.emptyList();
+        Map<Long, Loan> loans = entityManager
+                .createQuery("select l from Loan l left join fetch l.book where l.id in :ids", Loan.class)
+                .setParameter("ids", ids)
+                .getResultStream()
+                .collect(Collectors.toMap(Loan::getId, Function.identity()));
+        return ids.stream().map(loans::get).collect(Collectors.toList());
+    }
+
+    private static Query bind(Query query, String isbn, String customer) {
+        return query.setParameter("isbn", isbn).setParameter("customer", customer);
+    }
+
+    /**
+     * The same (property, id) positions as {@link com.matheuscordeiro.libaryapi.model.repository.keyset.KeysetSpecifications#after}.
+     */
+    private String after(Cursor cursor, Map<String, Object> parameters) {
+        if (cursor.isFirst())
+            return "";
+        String beyond = cursor.isAscending() ? " > " : " < ";
+        parameters.put("lastId", cursor.getLastId());
+        String afterId = "l.id" + beyond + ":lastId";
+        if (cursor.isById())
+            return " and " + afterId;
+        String column = column(cursor.getProperty());
+        Object value = cursor.lastValueAs(entityManager.getMetamodel().entity(Loan.class)
+                .getAttribute(cursor.getProperty()).getJavaType());
+        if (value == null)
+            return cursor.isAscending()
+                    ? " and ((" + column + " is null and " + afterId + ") or " + column + " is not null)"
+                    : " and " + column + " is null and " + afterId;
+        parameters.put("lastValue", value);
+        String valuesAfter = column + beyond + ":lastValue or (" + column + " = :lastValue and " + afterId + ")";
+        return cursor.isAscending()
+                ? " and (" + valuesAfter + ")"
+                : " and (" + valuesAfter + " or " + column + " is null)";
+    }
+
+    private static String orderBy(Cursor cursor) {
+        String direction = cursor.isAscending() ? " asc" : " desc";
+        if (cursor.isById())
+            return " order by l.id" + direction;
+        return " order by " + column(cursor.getProperty()) + direction
+                + (cursor.isAscending() ? " nulls first" : " nulls last") + ", l.id" + direction;
+    }
+
+    private static String column(String property) {
+        String column = SORT_COLUMNS.get(property);
+        if (column == null)
+            throw new BusinessException("Loans filtered by isbn and customer can only be sorted by "
+                    + String.join(", ", SORT_COLUMNS.keySet()) + ".");
+        return column;
+    }
+
+    private static String orderBy(Sort sort) {
+        StringJoiner orders = new StringJoiner(", ", " order by ", "");
+        for (Sort.Order order : sort) {
+            orders.add(column(order.getProperty()) + " " + order.getDirection().name());
+        }
+        return orders.add("l.id").toString();
+    }
+}
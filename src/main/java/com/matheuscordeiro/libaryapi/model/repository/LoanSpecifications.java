@@ -0,0 +1,42 @@
+package com.matheuscordeiro.libaryapi.model.repository;
+
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class LoanSpecifications {
+
+    private LoanSpecifications() {
+    }
+
+    /**
+     * Loans whose book has the isbn or whose customer matches; null filters are ignored. With both filters
+     * the database has a single index to read the OR through, so listings use
+     * {@link LoanFilterSql#ISBN_OR_CUSTOMER} then and this specification for one filter or none.
+     * The isbn is resolved to the book key in a subquery, so neither side joins book; the book is still
+     * fetched with the loan outside of count queries.
+     */
+    public static Specification<Loan> bookIsbnOrCustomer(String isbn, String customer) {
+        return (root, query, cb) -> {
+            boolean count = Long.class.equals(query.getResultType()) || long.class.equals(query.getResultType());
+            if (!count)
+                root.fetch("book");
+            List<Predicate> predicates = new ArrayList<>();
+            if (isbn != null) {
+                Subquery<Long> bookId = query.subquery(Long.class);
+                Root<Book> book = bookId.from(Book.class);
+                bookId.select(book.get("id")).where(cb.equal(book.get("isbn"), isbn));
+                predicates.add(cb.equal(root.get("book").get("id"), bookId));
+            }
+            if (customer != null)
+                predicates.add(cb.equal(root.get("customer"), customer));
+            return predicates.isEmpty() ? null : cb.or(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.matheuscordeiro.libaryapi.model.repository;
+
+/**
+ * Statements that keep the loan counters of books and customers current. They are shared by the JPA
+ * repositories and the reactive ones, so both APIs count the same way.
+ * <p>
+ * Late loans are counted in two steps: a loan is stamped with a mark the first time it is seen overdue,
+ * then the loans carrying that mark are added to their book and customer. Stamping first makes a loan
+ * count once even when the late-loan run and its return race.
+ */
+public final class LoanStatsSql {
+    /**
+     * Marks come from a sequence, so two runs never share one, whichever instance or API they run on.
+     */
+    public static final String NEXT_LATE_MARK = "select next value for late_mark_seq";
+
+    public static final String RECORD_CUSTOMER_LOAN = "merge into customer_loan_stats s" +
+            " using (select cast(:customer as varchar(255)) as customer) v on s.customer = v.customer" +
+            " when matched then update set times_borrowed = s.times_borrowed + 1, on_loan = s.on_loan + 1" +
+            " when not matched then insert (customer, times_borrowed, on_loan, late_count) values (v.customer, 1, 1, 0)";
+
+    public static final String RECORD_CUSTOMER_RETURNS = "update customer_loan_stats s" +
+            " set on_loan = on_loan - (select count(*) from loan l where l.customer = s.customer and l.id in (:ids))" +
+            " where s.customer in (select l.customer from loan l where l.id in (:ids))";
+
+    public static final String MARK_LATE = "update loan set late_mark = :mark" +
+            " where late_mark is null and (returned is null or returned = false) and loan_date <= :until";
+
+    public static final String MARK_LATE_IN = "update loan set late_mark = :mark" +
+            " where id in (:ids) and late_mark is null and loan_date <= :until";
+
+    public static final String ADD_BOOK_LATE = "update book b" +
+            " set late_count = late_count + (select count(*) from loan l where l.id_book = b.id and l.late_mark = :mark)" +
+            " where b.id in (select l.id_book from loan l where l.late_mark = :mark)";
+
+    public static final String ADD_CUSTOMER_LATE = "update customer_loan_stats s" +
+            " set late_count = late_count + (select count(*) from loan l where l.customer = s.customer and l.late_mark = :mark)" +
+            " where s.customer in (select l.customer from loan l where l.late_mark = :mark)";
+
+    private LoanStatsSql() {
+    }
+}
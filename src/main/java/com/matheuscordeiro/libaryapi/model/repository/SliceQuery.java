@@ -0,0 +1,53 @@
+package com.matheuscordeiro.libaryapi.model.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+/**
+ * Offset slice of a criteria query shared by the repository fragments. One row past the page is read to tell
+ * whether another page exists, so unlike findAll(spec, pageable) it never issues a count.
+ */
+public final class SliceQuery {
+
+    private SliceQuery() {
+    }
+
+    public static <T> Slice<T> find(EntityManager entityManager, Class<T> type, Specification<T> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+        query.select(root).orderBy(toOrders(pageable.getSort(), root, cb));
+        TypedQuery<T> typed = entityManager.createQuery(query);
+        if (pageable.isUnpaged())
+            return new SliceImpl<>(typed.getResultList());
+        List<T> rows = typed
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        return of(rows, pageable);
+    }
+
+    /**
+     * @param rows up to size + 1 rows from the page's offset; the extra row only signals that another page exists
+     */
+    public static <T> Slice<T> of(List<T> rows, Pageable pageable) {
+        if (pageable.isUnpaged() || rows.size() <= pageable.getPageSize())
+            return new SliceImpl<>(rows, pageable, false);
+        return new SliceImpl<>(rows.subList(0, pageable.getPageSize()), pageable, true);
+    }
+}
@@ -0,0 +1,99 @@
+package com.matheuscordeiro.libaryapi.model.repository.keyset;
+
+import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Position in a listing ordered by (sort property, id). The token handed to clients is opaque:
+ * url-safe base64 of "property:direction:lastId:lastValue", where a null lastValue leaves out the last
+ * part altogether. A cursor without lastId is the first page.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class Cursor {
+    private static final String ID = "id";
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final Long lastId;
+    private final String lastValue;
+
+    public static Cursor of(String token, Sort sort) {
+        if (token == null || token.isEmpty())
+            return first(sort);
+        return decode(token);
+    }
+
+    public static Cursor first(Sort sort) {
+        Sort.Order order = sort == null ? null : sort.stream().findFirst().orElse(null);
+        if (order == null)
+            return new Cursor(ID, Sort.Direction.ASC, null, null);
+        return new Cursor(order.getProperty(), order.getDirection(), null, null);
+    }
+
+    public static Cursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":", 4);
+            String lastValue = parts.length == 3 ? null : parts[3];
+            return new Cursor(parts[0], Sort.Direction.fromString(parts[1]), Long.valueOf(parts[2]), lastValue);
+        } catch (RuntimeException e) {
+            throw new BusinessException("Invalid cursor.");
+        }
+    }
+
+    public String encode() {
+        String raw = property + ":" + direction.name() + ":" + lastId + (lastValue == null ? "" : ":" + lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Cursor next(Object lastRow) {
+        BeanWrapperImpl row = new BeanWrapperImpl(lastRow);
+        Object value = row.getPropertyValue(property);
+        return new Cursor(property, direction, (Long) row.getPropertyValue(ID), value == null ? null : String.valueOf(value));
+    }
+
+    public void checkProperty(Set<String> sortable) {
+        if (!sortable.contains(property))
+            throw new BusinessException("Cursor pagination can only be sorted by " + String.join(", ", sortable) + ".");
+    }
+
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    public boolean isAscending() {
+        return direction.isAscending();
+    }
+
+    public boolean isById() {
+        return ID.equals(property);
+    }
+
+    public Sort sort() {
+        if (isById())
+            return Sort.by(direction, ID);
+        return Sort.by(direction, property).and(Sort.by(direction, ID));
+    }
+
+    public Object lastValueAs(Class<?> type) {
+        if (lastValue == null)
+            return null;
+        if (Long.class.equals(type))
+            return Long.valueOf(lastValue);
+        if (Integer.class.equals(type))
+            return Integer.valueOf(lastValue);
+        if (LocalDate.class.equals(type))
+            return LocalDate.parse(lastValue);
+        return lastValue;
+    }
+}
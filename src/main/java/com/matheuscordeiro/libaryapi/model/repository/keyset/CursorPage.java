@@ -0,0 +1,40 @@
+package com.matheuscordeiro.libaryapi.model.repository.keyset;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One slice of a keyset listing. nextCursor is null on the last slice and total is only filled when requested.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private Long total;
+
+    /**
+     * @param rows up to size + 1 rows read after the cursor; the extra row only signals that another slice exists
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Cursor cursor, Long total) {
+        if (rows.size() <= size)
+            return new CursorPage<>(rows, size, null, total);
+        List<T> content = rows.subList(0, size);
+        String next = cursor.next(content.get(size - 1)).encode();
+        return new CursorPage<>(content, size, next, total);
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> converter) {
+        List<R> converted = content.stream().map(converter).collect(Collectors.toList());
+        return new CursorPage<>(converted, size, nextCursor, total);
+    }
+}
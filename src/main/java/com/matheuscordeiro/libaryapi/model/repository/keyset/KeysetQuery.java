@@ -0,0 +1,67 @@
+package com.matheuscordeiro.libaryapi.model.repository.keyset;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Limit-only criteria query shared by the repository fragments. Unlike findAll(spec, pageable) it never issues a count.
+ * <p>
+ * Nulls of a sort property come below every value: first when ascending, last when descending. Criteria queries
+ * cannot say NULLS FIRST or LAST, so a nullable property is read as two range scans instead of being ordered on a
+ * computed rank: its null rows by id, then its values by (property, id), or the other way round when descending.
+ * Each scan is a plain order the indexes can follow, and the second one only runs when the first falls short.
+ */
+public final class KeysetQuery {
+
+    private KeysetQuery() {
+    }
+
+    public static <T> List<T> find(EntityManager entityManager, Class<T> type, Specification<T> spec, Cursor cursor, int limit) {
+        Class<?> keyType = entityManager.getMetamodel().entity(type).getAttribute(cursor.getProperty()).getJavaType();
+        if (cursor.isById() || keyType.isPrimitive())
+            return find(entityManager, type, Specification.where(spec).and(KeysetSpecifications.after(cursor)), cursor.sort(), limit);
+        Sort nullsOrder = Sort.by(cursor.getDirection(), "id");
+        boolean nullsFirst = cursor.isAscending();
+        boolean inNulls = cursor.isFirst() ? nullsFirst : cursor.getLastValue() == null;
+        List<T> rows = new ArrayList<>(inNulls
+                ? find(entityManager, type, Specification.where(spec).and(KeysetSpecifications.nullsAfter(cursor)), nullsOrder, limit)
+                : find(entityManager, type, Specification.where(spec).and(KeysetSpecifications.valuesAfter(cursor)), cursor.sort(), limit));
+        if (rows.size() >= limit || inNulls != nullsFirst)
+            return rows;
+        Cursor next = Cursor.first(cursor.sort());
+        rows.addAll(inNulls
+                ? find(entityManager, type, Specification.where(spec).and(KeysetSpecifications.valuesAfter(next)), cursor.sort(), limit - rows.size())
+                : find(entityManager, type, Specification.where(spec).and(KeysetSpecifications.nullsAfter(next)), nullsOrder, limit - rows.size()));
+        return rows;
+    }
+
+    private static <T> List<T> find(EntityManager entityManager, Class<T> type, Specification<T> spec, Sort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+        query.select(root).orderBy(orders(sort, root, cb));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private static List<Order> orders(Sort sort, Root<?> root, CriteriaBuilder cb) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Path<?> path = root.get(order.getProperty());
+            orders.add(order.isAscending() ? cb.asc(path) : cb.desc(path));
+        }
+        return orders;
+    }
+}
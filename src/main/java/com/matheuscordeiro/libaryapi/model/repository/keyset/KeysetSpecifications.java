@@ -0,0 +1,80 @@
+package com.matheuscordeiro.libaryapi.model.repository.keyset;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+
+public final class KeysetSpecifications {
+
+    private KeysetSpecifications() {
+    }
+
+    /**
+     * Rows strictly after the cursor in (property, id) order, with nulls below every value as
+     * {@link KeysetQuery} reads them: first when ascending, last when descending.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Specification<T> after(Cursor cursor) {
+        return (root, query, cb) -> {
+            if (cursor.isFirst())
+                return null;
+            Path<Long> id = root.get("id");
+            Predicate afterId = beyond(cb, (Expression) id, cursor.getLastId(), cursor.isAscending());
+            if (cursor.isById())
+                return afterId;
+            Path<Comparable> key = root.get(cursor.getProperty());
+            Comparable value = (Comparable) cursor.lastValueAs(key.getJavaType());
+            if (value == null) {
+                Predicate nullsAfter = cb.and(cb.isNull(key), afterId);
+                return cursor.isAscending() ? cb.or(nullsAfter, cb.isNotNull(key)) : nullsAfter;
+            }
+            Predicate valuesAfter = cb.or(
+                    beyond(cb, key, value, cursor.isAscending()),
+                    cb.and(cb.equal(key, value), afterId)
+            );
+            return cursor.isAscending() ? valuesAfter : cb.or(valuesAfter, cb.isNull(key));
+        };
+    }
+
+    /**
+     * Rows whose sort property is null, past the cursor's id when the cursor stands among them.
+     * {@link KeysetQuery} reads them in id order.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Specification<T> nullsAfter(Cursor cursor) {
+        return (root, query, cb) -> {
+            Path<?> key = root.get(cursor.getProperty());
+            if (cursor.isFirst() || cursor.getLastValue() != null)
+                return cb.isNull(key);
+            Path<Long> id = root.get("id");
+            return cb.and(cb.isNull(key), beyond(cb, (Expression) id, cursor.getLastId(), cursor.isAscending()));
+        };
+    }
+
+    /**
+     * Rows whose sort property has a value, past the cursor when it stands among them.
+     * {@link KeysetQuery} reads them in (property, id) order.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Specification<T> valuesAfter(Cursor cursor) {
+        return (root, query, cb) -> {
+            Path<Comparable> key = root.get(cursor.getProperty());
+            if (cursor.isFirst() || cursor.getLastValue() == null)
+                return cb.isNotNull(key);
+            Path<Long> id = root.get("id");
+            Comparable value = (Comparable) cursor.lastValueAs(key.getJavaType());
+            return cb.or(
+                    beyond(cb, key, value, cursor.isAscending()),
+                    cb.and(cb.equal(key, value), beyond(cb, (Expression) id, cursor.getLastId(), cursor.isAscending()))
+            );
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate beyond(CriteriaBuilder cb, Expression<Comparable> key, Comparable value, boolean ascending) {
+        return ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+    }
+}
@@ -0,0 +1,163 @@
+package com.matheuscordeiro.libaryapi.model.repository.reactive;
+
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Non-blocking access to the book table for the reactive API. Ids come from the same pooled sequence
+ * Hibernate uses: each call reserves a block of 50 and only its highest value is taken, so they never
+ * collide with a block Hibernate is handing out.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveBookRepository {
+    private static final String COLUMNS = "id, title, author, isbn, active_loan_id, version, loans_version";
+
+    private final DatabaseClient client;
+
+    public Mono<Book> findById(Long id) {
+        return client.execute("select " + COLUMNS + " from book where id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> toBook(row))
+                .one();
+    }
+
+    public Mono<Book> findByIsbn(String isbn) {
+        return client.execute("select " + COLUMNS + " from book where isbn = :isbn")
+                .bind("isbn", isbn)
+                .map((row, metadata) -> toBook(row))
+                .one();
+    }
+
+    public Mono<Boolean> existsByIsbn(String isbn) {
+        return client.execute("select count(*) from book where isbn = :isbn")
+                .bind("isbn", isbn)
+                .map((row, metadata) -> row.get(0, Long.class) > 0)
+                .one();
+    }
+
+    public Mono<Book> insert(Book book) {
+        return client.execute("select next value for book_seq")
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one()
+                .flatMap(id -> client.execute("insert into book (id, title, author, isbn) values (:id, :title, :author, :isbn)")
+                        .bind("id", id)
+                        .bind("title", book.getTitle())
+                        .bind("author", book.getAuthor())
+                        .bind("isbn", book.getIsbn())
+                        .fetch()
+                        .rowsUpdated()
+                        .thenReturn(Book.builder().id(id).title(book.getTitle()).author(book.getAuthor()).isbn(book.getIsbn()).build()));
+    }
+
+    /**
+     * Optimistic update like the {@code @Version} of the entity: only the row still at the book's version
+     * changes, so 0 means another write got there first.
+     */
+    public Mono<Integer> update(Book book) {
+        return client.execute("update book set title = :title, author = :author, version = version + 1" +
+                " where id = :id and version = :version")
+                .bind("title", book.getTitle())
+                .bind("author", book.getAuthor())
+                .bind("id", book.getId())
+                .bind("version", book.getVersion())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Integer> deleteById(Long id) {
+        return client.execute("delete from book where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Case insensitive CONTAINING match on the non null filter fields, like the example query of the servlet API.
+     * Reads one row past the page.
+     */
+    public Flux<Book> findAll(Book filter, boolean availableOnly, Pageable pageable) {
+        Map<String, String> bindings = new LinkedHashMap<>();
+        String sql = "select " + COLUMNS + " from book" + where(filter, availableOnly, bindings)
+                + " order by " + ReactiveSql.orderBy(pageable.getSort(), ReactiveSql.BOOK_COLUMNS)
+                + ReactiveSql.limit(pageable);
+        DatabaseClient.GenericExecuteSpec spec = client.execute(sql);
+        for (Map.Entry<String, String> binding : bindings.entrySet())
+            spec = spec.bind(binding.getKey(), binding.getValue());
+        return spec.map((row, metadata) -> toBook(row)).all();
+    }
+
+    public Mono<Long> count(Book filter, boolean availableOnly) {
+        Map<String, String> bindings = new LinkedHashMap<>();
+        DatabaseClient.GenericExecuteSpec spec = client.execute("select count(*) from book" + where(filter, availableOnly, bindings));
+        for (Map.Entry<String, String> binding : bindings.entrySet())
+            spec = spec.bind(binding.getKey(), binding.getValue());
+        return spec.map((row, metadata) -> row.get(0, Long.class)).one();
+    }
+
+    public Mono<Integer> markLoaned(Long id, Long loanId) {
+        return client.execute("update book set active_loan_id = :loanId, loans_version = loans_version + 1, times_borrowed = times_borrowed + 1" +
+                " where id = :id and active_loan_id is null")
+                .bind("loanId", loanId)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Integer> release(Long id, Long loanId) {
+        return client.execute("update book set active_loan_id = null where id = :id and active_loan_id = :loanId")
+                .bind("id", id)
+                .bind("loanId", loanId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Integer> touchLoans(Long id) {
+        return client.execute("update book set loans_version = loans_version + 1 where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static String where(Book filter, boolean availableOnly, Map<String, String> bindings) {
+        StringBuilder where = new StringBuilder();
+        contains(where, bindings, "title", filter.getTitle());
+        contains(where, bindings, "author", filter.getAuthor());
+        contains(where, bindings, "isbn", filter.getIsbn());
+        if (availableOnly)
+            where.append(where.length() == 0 ? " where " : " and ").append("active_loan_id is null");
+        return where.toString();
+    }
+
+    private static void contains(StringBuilder where, Map<String, String> bindings, String column, String value) {
+        if (value == null)
+            return;
+        where.append(where.length() == 0 ? " where " : " and ")
+                .append("lower(").append(column).append(") like :").append(column);
+        bindings.put(column, "%" + value.toLowerCase(Locale.ROOT) + "%");
+    }
+
+    static Book toBook(Row row) {
+        return Book.builder()
+                .id(row.get("id", Long.class))
+                .title(row.get("title", String.class))
+                .author(row.get("author", String.class))
+                .isbn(row.get("isbn", String.class))
+                .activeLoanId(row.get("active_loan_id", Long.class))
+                .version(row.get("version", Long.class))
+                .loansVersion(row.get("loans_version", Long.class))
+                .build();
+    }
+}
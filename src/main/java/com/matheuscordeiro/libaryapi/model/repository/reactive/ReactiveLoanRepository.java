@@ -0,0 +1,179 @@
+package com.matheuscordeiro.libaryapi.model.repository.reactive;
+
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.LoanFilterSql;
+import com.matheuscordeiro.libaryapi.model.repository.LoanStatsSql;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Non-blocking access to the loan table for the reactive API. Loans are always read joined with
+ * their book, the way the servlet API fetches them.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveLoanRepository {
+    private static final String SELECT = "select l.id, l.customer, l.costumer_email, l.loan_date, l.returned," +
+            " b.id as book_id, b.title, b.author, b.isbn, b.active_loan_id from loan l join book b on b.id = l.id_book";
+
+    private final DatabaseClient client;
+
+    public Mono<Loan> findById(Long id) {
+        return client.execute(SELECT + " where l.id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> toLoan(row))
+                .one();
+    }
+
+    public Mono<Loan> insert(Loan loan) {
+        DatabaseClient.GenericExecuteSpec spec = client.execute("insert into loan (customer, costumer_email, id_book, loan_date, returned)" +
+                " values (:customer, :email, :book, :loanDate, false)")
+                .bind("book", loan.getBook().getId())
+                .bind("loanDate", loan.getLoanDate());
+        spec = ReactiveSql.bindNullable(spec, "customer", loan.getCustomer(), String.class);
+        spec = ReactiveSql.bindNullable(spec, "email", loan.getCostumerEmail(), String.class);
+        return spec
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map((row, metadata) -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    loan.setId(id);
+                    loan.setReturned(false);
+                    return loan;
+                });
+    }
+
+    /**
+     * Flips an open loan to returned; returns 0 when it was returned already.
+     */
+    public Mono<Integer> markReturned(Long id) {
+        return client.execute("update loan set returned = true where id = :id and (returned is null or returned = false)")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Integer> recordCustomerLoan(String customer) {
+        return client.execute(LoanStatsSql.RECORD_CUSTOMER_LOAN)
+                .bind("customer", customer)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Same counter updates as a servlet return: late counts for the overdue loan, then the customer's on loan count.
+     */
+    public Mono<Integer> recordReturn(Long id, LocalDate until) {
+        List<Long> ids = Collections.singletonList(id);
+        return client.execute(LoanStatsSql.NEXT_LATE_MARK)
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one()
+                .flatMap(mark -> client.execute(LoanStatsSql.MARK_LATE_IN)
+                        .bind("ids", ids)
+                        .bind("until", until)
+                        .bind("mark", mark)
+                        .fetch()
+                        .rowsUpdated()
+                        .flatMap(marked -> marked == 0 ? Mono.just(0) : addLate(mark)))
+                .then(client.execute(LoanStatsSql.RECORD_CUSTOMER_RETURNS)
+                        .bind("ids", ids)
+                        .fetch()
+                        .rowsUpdated());
+    }
+
+    private Mono<Integer> addLate(long mark) {
+        return client.execute(LoanStatsSql.ADD_BOOK_LATE)
+                .bind("mark", mark)
+                .fetch()
+                .rowsUpdated()
+                .then(client.execute(LoanStatsSql.ADD_CUSTOMER_LATE)
+                        .bind("mark", mark)
+                        .fetch()
+                        .rowsUpdated());
+    }
+
+    /**
+     * Reads one row past the page.
+     */
+    public Flux<Loan> findByBook(Long bookId, Pageable pageable) {
+        return client.execute(SELECT + " where l.id_book = :book order by "
+                + ReactiveSql.orderBy(pageable.getSort(), ReactiveSql.LOAN_COLUMNS)
+                + ReactiveSql.limit(pageable))
+                .bind("book", bookId)
+                .map((row, metadata) -> toLoan(row))
+                .all();
+    }
+
+    public Mono<Long> countByBook(Long bookId) {
+        return client.execute("select count(*) from loan where id_book = :book")
+                .bind("book", bookId)
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one();
+    }
+
+    /**
+     * Loans of the book with the isbn or of the customer; null filters are ignored. As on the servlet side the
+     * isbn is resolved to the book key, and with both filters each side reads its own loan index through
+     * {@link LoanFilterSql#ISBN_OR_CUSTOMER}. Reads one row past the page.
+     */
+    public Flux<Loan> findByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable) {
+        return bindFilter(client.execute(SELECT + matching(isbn, customer) + " order by "
+                + ReactiveSql.orderBy(pageable.getSort(), ReactiveSql.LOAN_COLUMNS)
+                + ReactiveSql.limit(pageable)), isbn, customer)
+                .map((row, metadata) -> toLoan(row))
+                .all();
+    }
+
+    public Mono<Long> countByBookIsbnOrCustomer(String isbn, String customer) {
+        return bindFilter(client.execute("select count(*) from loan l" + matching(isbn, customer)), isbn, customer)
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one();
+    }
+
+    private static String matching(String isbn, String customer) {
+        if (isbn != null && customer != null)
+            return " where " + LoanFilterSql.ISBN_OR_CUSTOMER;
+        if (isbn != null)
+            return " where l.id_book = (select id from book where isbn = :isbn)";
+        if (customer != null)
+            return " where l.customer = :customer";
+        return "";
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindFilter(DatabaseClient.GenericExecuteSpec spec, String isbn, String customer) {
+        if (isbn != null)
+            spec = spec.bind("isbn", isbn);
+        if (customer != null)
+            spec = spec.bind("customer", customer);
+        return spec;
+    }
+
+    private static Loan toLoan(Row row) {
+        return Loan.builder()
+                .id(row.get("id", Long.class))
+                .customer(row.get("customer", String.class))
+                .costumerEmail(row.get("costumer_email", String.class))
+                .loanDate(row.get("loan_date", LocalDate.class))
+                .returned(row.get("returned", Boolean.class))
+                .book(Book.builder()
+                        .id(row.get("book_id", Long.class))
+                        .title(row.get("title", String.class))
+                        .author(row.get("author", String.class))
+                        .isbn(row.get("isbn", String.class))
+                        .activeLoanId(row.get("active_loan_id", Long.class))
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.matheuscordeiro.libaryapi.model.repository.reactive;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+final class ReactiveSql {
+    static final Map<String, String> BOOK_COLUMNS = new HashMap<>();
+    static final Map<String, String> LOAN_COLUMNS = new HashMap<>();
+
+    static {
+        BOOK_COLUMNS.put("id", "id");
+        BOOK_COLUMNS.put("title", "title");
+        BOOK_COLUMNS.put("author", "author");
+        BOOK_COLUMNS.put("isbn", "isbn");
+        LOAN_COLUMNS.put("id", "l.id");
+        LOAN_COLUMNS.put("customer", "l.customer");
+        LOAN_COLUMNS.put("loanDate", "l.loan_date");
+    }
+
+    private ReactiveSql() {
+    }
+
+    /**
+     * Limit and offset of the page plus one row, which only tells whether another page exists.
+     */
+    static String limit(Pageable pageable) {
+        return " limit " + (pageable.getPageSize() + 1) + " offset " + pageable.getOffset();
+    }
+
+    /**
+     * Order by clause for the sortable properties; unknown properties are ignored and the id always
+     * ends the order, in the requested direction if any, so pages are stable.
+     */
+    static String orderBy(Sort sort, Map<String, String> columns) {
+        Sort.Order byId = sort.getOrderFor("id");
+        String id = columns.get("id") + (byId != null && byId.isDescending() ? " desc" : " asc");
+        String order = sort.stream()
+                .filter(o -> columns.containsKey(o.getProperty()) && !o.getProperty().equals("id"))
+                .map(o -> columns.get(o.getProperty()) + (o.isAscending() ? " asc" : " desc"))
+                .collect(Collectors.joining(", "));
+        return order.isEmpty() ? id : order + ", " + id;
+    }
+
+    static <T> DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec,
+                                                              String name, T value, Class<T> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+}
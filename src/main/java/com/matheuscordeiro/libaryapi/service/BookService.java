@@ -1,22 +1,47 @@
 package com.matheuscordeiro.libaryapi.service;
 
+import com.matheuscordeiro.libaryapi.api.dto.BookImportResultDTO;
 import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.Cursor;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
 
     Book save(Book any);
 
+    List<BookImportResultDTO> importBooks(List<Book> books);
+
     Optional<Book> getById(Long id);
 
+    /**
+     * Current versions of the book and of its loans, read without loading the entity. Never cached.
+     */
+    Optional<BookRepository.Versions> getVersions(Long id);
+
     void delete(Book book);
 
     Book update(Book book);
 
     Page<Book> find(Book filter, Pageable pageRequest);
 
+    Page<Book> find(Book filter, boolean availableOnly, Pageable pageRequest);
+
+    /**
+     * A {@link Page} with the total when withTotal is set, otherwise a slice read without the count query.
+     */
+    Slice<Book> find(Book filter, boolean availableOnly, Pageable pageRequest, boolean withTotal);
+
+    CursorPage<Book> find(Book filter, Cursor cursor, int size, boolean withTotal);
+
     Optional<Book> getBookByIsbn(String isbn);
+
+    void exportAll(Consumer<Book> consumer);
 }
@@ -1,24 +1,74 @@
 package com.matheuscordeiro.libaryapi.service;
 
 import com.matheuscordeiro.libaryapi.api.dto.LoanFilterDTO;
+import com.matheuscordeiro.libaryapi.api.dto.LoanReturnResultDTO;
+import com.matheuscordeiro.libaryapi.api.dto.LoanStatsDTO;
 import com.matheuscordeiro.libaryapi.model.entity.Book;
 import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.LoanRepository.LateLoan;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.Cursor;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface LoanService {
+    /**
+     * Days a loan may last before it counts as late.
+     */
+    int LOAN_DAYS = 4;
+
+    /**
+     * Loans taken on or before the returned date are late on the given day.
+     */
+    static LocalDate lateUntil(LocalDate today) {
+        return today.minusDays(LOAN_DAYS);
+    }
+
     Loan save(Loan loan);
 
     Optional<Loan> getById(Long id);
 
     Loan update(Loan loan);
 
+    /**
+     * Marks the loans returned in one transaction and reports each distinct id, in request order.
+     */
+    List<LoanReturnResultDTO> returnLoans(List<Long> ids);
+
+    /**
+     * Counts the open loans that went past their due date since the last call; returns how many.
+     */
+    int recordLateLoans();
+
+    Optional<LoanStatsDTO> getBookStats(Long bookId);
+
+    Optional<LoanStatsDTO> getCustomerStats(String customer);
+
     Page<Loan> find(LoanFilterDTO filterDTO, Pageable page);
 
+    /**
+     * A {@link Page} with the total when withTotal is set, otherwise a slice read without the count query.
+     */
+    Slice<Loan> find(LoanFilterDTO filterDTO, Pageable page, boolean withTotal);
+
+    CursorPage<Loan> find(LoanFilterDTO filterDTO, Cursor cursor, int size, boolean withTotal);
+
     Page<Loan> getLoansByBook(Book book, Pageable pageable);
 
+    Slice<Loan> getLoansByBook(Book book, Pageable pageable, boolean withTotal);
+
     List<Loan> getAllLateLoans();
+
+    /**
+     * Walks the late loans in id order, handing them to the consumer in chunks of at most chunkSize.
+     */
+    void forEachLateLoanChunk(int chunkSize, Consumer<List<LateLoan>> consumer);
+
+    void exportAll(Consumer<Loan> consumer);
 }
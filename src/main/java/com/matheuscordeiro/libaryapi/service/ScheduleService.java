@@ -1,29 +1,78 @@
 package com.matheuscordeiro.libaryapi.service;
 
-import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ScheduleService {
     private  static final String CRON_LATE_LOANS = "0 0 0 1/1 * ?";
     @Value("${application.mail.lateloans.message}")
     private String message;
+    @Value("${application.mail.lateloans.chunk-size:500}")
+    private int chunkSize;
     private final LoanService loanService;
     private final EmailService emailService;
+    private final MeterRegistry meterRegistry;
 
+    /**
+     * Counts newly overdue loans into the book and customer late counters, with set-based updates.
+     */
+    @Scheduled(cron = CRON_LATE_LOANS)
+    public void recordLateLoans() {
+        int marked = loanService.recordLateLoans();
+        log.info("late loan counters updated, {} loans became late", marked);
+    }
+
+    /**
+     * Late loans are read and mailed one chunk at a time, so memory stays bounded by the chunk size.
+     * A chunk that fails is logged and counted, and the run carries on with the next one.
+     */
     @Scheduled(cron = CRON_LATE_LOANS)
     public void sendMailToLateLoans() {
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
-        List<String> mailsList = allLateLoans.stream()
-                .map(loan -> loan.getCostumerEmail())
-                .collect(Collectors.toList());
-        emailService.sendMail(message, mailsList);
+        long started = System.nanoTime();
+        AtomicLong chunks = new AtomicLong();
+        AtomicLong loans = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        loanService.forEachLateLoanChunk(chunkSize, chunk -> {
+            chunks.incrementAndGet();
+            loans.addAndGet(chunk.size());
+            List<String> mailsList = chunk.stream()
+                    .map(loan -> loan.getCostumerEmail())
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .collect(Collectors.toList());
+            try {
+                if (!mailsList.isEmpty())
+                    emailService.sendMail(message, mailsList);
+                log.info("late loans chunk {} sent, {} loans processed so far", chunks.get(), loans.get());
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                log.error("late loans chunk {} failed, loan ids {} to {}", chunks.get(),
+                        chunk.get(0).getId(), chunk.get(chunk.size() - 1).getId(), e);
+            }
+        });
+        long elapsed = System.nanoTime() - started;
+        Timer.builder("library.lateloans.run")
+                .description("Duration of a late-loan mailing run")
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("library.lateloans.loans").increment(loans.get());
+        meterRegistry.counter("library.lateloans.chunks").increment(chunks.get());
+        meterRegistry.counter("library.lateloans.chunks.failed").increment(failed.get());
+        log.info("late loans run finished: {} loans in {} chunks ({} failed) in {} ms",
+                loans.get(), chunks.get(), failed.get(), TimeUnit.NANOSECONDS.toMillis(elapsed));
     }
 }
@@ -1,66 +1,282 @@
 package com.matheuscordeiro.libaryapi.service.impl;
 
+import com.matheuscordeiro.libaryapi.api.dto.BookImportResultDTO;
 import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.exception.DuplicateIsbnException;
 import com.matheuscordeiro.libaryapi.model.entity.Book;
 import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import com.matheuscordeiro.libaryapi.model.repository.BookSpecifications;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.Cursor;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.CursorPage;
 import com.matheuscordeiro.libaryapi.service.BookService;
+import com.matheuscordeiro.libaryapi.service.index.BookSearchIndex;
+import com.matheuscordeiro.libaryapi.service.index.IsbnIndex;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static com.matheuscordeiro.libaryapi.config.CacheConfig.BOOKS;
+import static com.matheuscordeiro.libaryapi.config.CacheConfig.BOOKS_BY_ISBN;
 
 @Service
 public class BookServiceImpl implements BookService {
+    private static final Set<String> CURSOR_SORT_PROPERTIES = new HashSet<>(Arrays.asList("id", "title", "author", "isbn"));
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
     private BookRepository repository;
+    private IsbnIndex isbnIndex;
+    private BookSearchIndex searchIndex;
 
-    public BookServiceImpl(BookRepository repository) {
+    public BookServiceImpl(BookRepository repository, IsbnIndex isbnIndex, BookSearchIndex searchIndex) {
         this.repository = repository;
+        this.isbnIndex = isbnIndex;
+        this.searchIndex = searchIndex;
     }
 
     @Override
+    @CacheEvict(cacheNames = BOOKS_BY_ISBN, key = "#book.isbn", condition = "#book.isbn != null")
     public Book save(Book book) {
-        if(repository.existsByIsbn(book.getIsbn())){
-            throw new BusinessException("Isbn already registered.");
+        if(isbnIndex.mightContain(book.getIsbn()) && repository.existsByIsbn(book.getIsbn())){
+            throw new DuplicateIsbnException();
+        }
+        Book savedBook;
+        try {
+            savedBook = repository.save(book);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateIsbnException();
+        }
+        isbnIndex.add(savedBook.getIsbn());
+        searchIndex.put(savedBook);
+        return savedBook;
+    }
+
+    /**
+     * Duplicates are detected per set: isbns the index rules out skip the database, the rest are
+     * checked with chunked IN queries, and repeats inside the import are reported as duplicates too.
+     */
+    @Override
+    @Transactional
+    public List<BookImportResultDTO> importBooks(List<Book> books) {
+        List<BookImportResultDTO> results = new ArrayList<>(books.size());
+        Set<String> existing = findExistingIsbns(books);
+        Set<String> seen = new HashSet<>();
+        List<Book> accepted = new ArrayList<>();
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            BookImportResultDTO result = BookImportResultDTO.builder().index(i).isbn(book.getIsbn()).build();
+            if (!isValid(book)) {
+                result.setStatus(BookImportResultDTO.Status.INVALID);
+            } else if (existing.contains(book.getIsbn()) || !seen.add(book.getIsbn())) {
+                result.setStatus(BookImportResultDTO.Status.DUPLICATE);
+            } else {
+                result.setStatus(BookImportResultDTO.Status.CREATED);
+                accepted.add(book);
+            }
+            results.add(result);
+        }
+        repository.persistAll(accepted);
+        for (int i = 0, created = 0; i < results.size(); i++) {
+            BookImportResultDTO result = results.get(i);
+            if (result.getStatus() == BookImportResultDTO.Status.CREATED) {
+                Book book = accepted.get(created++);
+                result.setId(book.getId());
+                isbnIndex.add(book.getIsbn());
+                searchIndex.put(book);
+            }
+        }
+        return results;
+    }
+
+    private Set<String> findExistingIsbns(List<Book> books) {
+        List<String> candidates = books.stream()
+                .map(Book::getIsbn)
+                .filter(StringUtils::hasText)
+                .filter(isbnIndex::mightContain)
+                .distinct()
+                .collect(Collectors.toList());
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < candidates.size(); from += IN_CLAUSE_CHUNK) {
+            List<String> chunk = candidates.subList(from, Math.min(from + IN_CLAUSE_CHUNK, candidates.size()));
+            existing.addAll(repository.findExistingIsbns(chunk));
         }
-        return repository.save(book);
+        return existing;
     }
 
+    private boolean isValid(Book book) {
+        return StringUtils.hasText(book.getTitle())
+                && StringUtils.hasText(book.getAuthor())
+                && StringUtils.hasText(book.getIsbn());
+    }
+
+    /**
+     * Reads the primary rather than the replica: the result is cached, and a lagging replica would pin
+     * the pre-update row and its version there until the entry expires.
+     */
     @Override
+    @Cacheable(cacheNames = BOOKS, key = "#id", unless = "#result == null")
+    @Transactional
     public Optional<Book> getById(Long id) {
         return this.repository.findById(id);
     }
 
+    /**
+     * Reads the primary so conditional requests are checked against the version that writes will see.
+     */
     @Override
+    @Transactional
+    public Optional<BookRepository.Versions> getVersions(Long id) {
+        return repository.findVersionsById(id);
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = BOOKS, key = "#book.id"),
+            @CacheEvict(cacheNames = BOOKS_BY_ISBN, key = "#book.isbn", condition = "#book.isbn != null")
+    })
     public void delete(Book book) {
         if(book == null || book.getId() == null)
             throw  new IllegalArgumentException("Book id cant be null");
         this.repository.delete(book);
+        searchIndex.remove(book.getId());
     }
 
+    /**
+     * Evicts before the save as well as after it, so a failed update cannot leave anything but the stored book
+     * cached and a read racing a successful one cannot put the old book back. Callers change a copy of the
+     * cached book, never the cached instance itself.
+     */
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = BOOKS, key = "#book.id", beforeInvocation = true),
+            @CacheEvict(cacheNames = BOOKS_BY_ISBN, key = "#book.isbn", condition = "#book.isbn != null", beforeInvocation = true),
+            @CacheEvict(cacheNames = BOOKS, key = "#book.id"),
+            @CacheEvict(cacheNames = BOOKS_BY_ISBN, key = "#book.isbn", condition = "#book.isbn != null")
+    })
     public Book update(Book book) {
         if(book == null || book.getId() == null)
             throw  new IllegalArgumentException("Book id cant be null");
-        return  repository.save(book);
+        Book updatedBook;
+        try {
+            updatedBook = repository.save(book);
+        } catch (OptimisticLockingFailureException e) {
+            throw new BusinessException("Book was changed concurrently.");
+        }
+        searchIndex.put(updatedBook);
+        return updatedBook;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Book> find(Book filter, Pageable pageRequest) {
-        Example<Book> example = Example.of(filter,
+        return find(filter, false, pageRequest);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Book> find(Book filter, boolean availableOnly, Pageable pageRequest) {
+        Optional<Set<Long>> candidates = searchIndex.search(filter.getTitle(), filter.getAuthor());
+        if (!candidates.isPresent() && !availableOnly)
+            return repository.findAll(toExample(filter), pageRequest);
+        Optional<Specification<Book>> matching = matching(filter, candidates, availableOnly);
+        if (!matching.isPresent())
+            return new PageImpl<>(Collections.emptyList(), pageRequest, 0);
+        return repository.findAll(matching.get(), pageRequest);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> find(Book filter, boolean availableOnly, Pageable pageRequest, boolean withTotal) {
+        if (withTotal)
+            return find(filter, availableOnly, pageRequest);
+        Optional<Specification<Book>> matching =
+                matching(filter, searchIndex.search(filter.getTitle(), filter.getAuthor()), availableOnly);
+        if (!matching.isPresent())
+            return new SliceImpl<>(Collections.emptyList(), pageRequest, false);
+        return repository.findSlice(matching.get(), pageRequest);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Book> find(Book filter, Cursor cursor, int size, boolean withTotal) {
+        cursor.checkProperty(CURSOR_SORT_PROPERTIES);
+        int limit = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+        Optional<Specification<Book>> matching =
+                matching(filter, searchIndex.search(filter.getTitle(), filter.getAuthor()), false);
+        if (!matching.isPresent())
+            return CursorPage.of(Collections.emptyList(), limit, cursor, withTotal ? 0L : null);
+        List<Book> rows = repository.findAll(matching.get(), cursor, limit + 1);
+        Long total = withTotal ? repository.count(matching.get()) : null;
+        return CursorPage.of(rows, limit, cursor, total);
+    }
+
+    /**
+     * The filter as a specification, narrowed to the search index candidates when the index could answer.
+     * Empty when the index found no candidate, so the caller can skip the query.
+     */
+    private Optional<Specification<Book>> matching(Book filter, Optional<Set<Long>> candidates, boolean availableOnly) {
+        if (candidates.isPresent() && candidates.get().isEmpty())
+            return Optional.empty();
+        Specification<Book> matching = candidates
+                .map(ids -> matching(filter, ids))
+                .orElseGet(() -> BookSpecifications.matching(toExample(filter)));
+        if (availableOnly)
+            matching = matching.and(BookSpecifications.available());
+        return Optional.of(matching);
+    }
+
+    /**
+     * Candidates come from the search index; the example keeps the CONTAINING semantics on top of them.
+     */
+    private Specification<Book> matching(Book filter, Set<Long> candidates) {
+        return Specification
+                .where(BookSpecifications.idIn(candidates))
+                .and(BookSpecifications.matching(toExample(filter)));
+    }
+
+    private Example<Book> toExample(Book filter) {
+        return Example.of(filter,
                 ExampleMatcher
                         .matching()
                         .withIgnoreCase()
                         .withIgnoreNullValues()
                         .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING)
         );
-        return repository.findAll(example, pageRequest);
     }
 
     @Override
+    @Cacheable(cacheNames = BOOKS_BY_ISBN, key = "#isbn", condition = "#isbn != null", unless = "#result == null")
+    @Transactional
     public Optional<Book> getBookByIsbn(String isbn) {
         return repository.findByIsbn(isbn);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<Book> consumer) {
+        repository.forEachInOrder(consumer);
+    }
 }
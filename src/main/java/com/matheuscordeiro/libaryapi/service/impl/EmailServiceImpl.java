@@ -1,30 +1,50 @@
 package com.matheuscordeiro.libaryapi.service.impl;
 
+import com.matheuscordeiro.libaryapi.model.entity.EmailOutbox;
+import com.matheuscordeiro.libaryapi.model.repository.EmailOutboxRepository;
 import com.matheuscordeiro.libaryapi.service.EmailService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
 
+/**
+ * Mails are only written to the outbox here, in the caller's transaction; the SMTP work happens
+ * in {@link com.matheuscordeiro.libaryapi.service.mail.EmailOutboxDispatcher}.
+ */
 @Service
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
+    static final String SUBJECT = "Book with late loan";
+
     @Value("${application.mail.default-remetent}")
     private String remetent;
 
-    private final JavaMailSender javaMailSender;
+    private final EmailOutboxRepository repository;
 
     @Override
+    @Transactional
     public void sendMail(String message, List<String> mailsList) {
-        String[] mails = mailsList.toArray(new String[mailsList.size()]);
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setFrom(remetent);
-        mailMessage.setSubject("Book with late loan");
-        mailMessage.setText(message);
-        mailMessage.setTo(mails);
-        javaMailSender.send(mailMessage);
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> mails = mailsList.stream()
+                .filter(StringUtils::hasText)
+                .map(String::trim)
+                .distinct()
+                .map(recipient -> EmailOutbox.builder()
+                        .sender(remetent)
+                        .recipient(recipient)
+                        .subject(SUBJECT)
+                        .body(message)
+                        .status(EmailOutbox.Status.PENDING)
+                        .nextAttemptAt(now)
+                        .createdAt(now)
+                        .build())
+                .collect(Collectors.toList());
+        repository.saveAll(mails);
     }
 }
@@ -1,56 +1,327 @@
 package com.matheuscordeiro.libaryapi.service.impl;
 
 import com.matheuscordeiro.libaryapi.api.dto.LoanFilterDTO;
-import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.api.dto.LoanReturnResultDTO;
+import com.matheuscordeiro.libaryapi.api.dto.LoanStatsDTO;
+import com.matheuscordeiro.libaryapi.exception.BookAlreadyLoanedException;
+import com.matheuscordeiro.libaryapi.exception.LoanAlreadyReturnedException;
 import com.matheuscordeiro.libaryapi.model.entity.Book;
 import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import com.matheuscordeiro.libaryapi.model.repository.CustomerLoanStatsRepository;
 import com.matheuscordeiro.libaryapi.model.repository.LoanRepository;
+import com.matheuscordeiro.libaryapi.model.repository.LoanRepository.LateLoan;
+import com.matheuscordeiro.libaryapi.model.repository.LoanRepository.LoanState;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.Cursor;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.CursorPage;
 import com.matheuscordeiro.libaryapi.service.LoanService;
+import com.matheuscordeiro.libaryapi.service.lock.StripedLock;
+import com.matheuscordeiro.libaryapi.service.metrics.ActiveLoanCounter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import static com.matheuscordeiro.libaryapi.model.repository.LoanSpecifications.bookIsbnOrCustomer;
+
+@Service
 public class LoanServiceImpl implements LoanService {
+    private static final Set<String> CURSOR_SORT_PROPERTIES = new HashSet<>(Arrays.asList("id", "loanDate", "customer"));
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
     private LoanRepository repository;
+    private BookRepository bookRepository;
+    private CustomerLoanStatsRepository customerStatsRepository;
+    private StripedLock bookLocks;
+    private TransactionTemplate transactionTemplate;
+    private ActiveLoanCounter activeLoans;
 
-    public LoanServiceImpl(LoanRepository repository) {
+    public LoanServiceImpl(LoanRepository repository,
+                           BookRepository bookRepository,
+                           CustomerLoanStatsRepository customerStatsRepository,
+                           PlatformTransactionManager transactionManager,
+                           ActiveLoanCounter activeLoans,
+                           @Value("${application.loan.lock-stripes:256}") int lockStripes) {
         this.repository = repository;
+        this.bookRepository = bookRepository;
+        this.customerStatsRepository = customerStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.activeLoans = activeLoans;
+        this.bookLocks = new StripedLock(lockStripes);
     }
 
+    /**
+     * Availability is a primary key read of the book's active loan. The conditional update that hands
+     * the book to the new loan is what guarantees a single active loan, across instances too; the
+     * book's lock only keeps concurrent checkouts in this instance from inserting loans that would be
+     * rolled back. The lock is held around the whole transaction, so the next checkout of the book only
+     * reads its availability after this one has committed.
+     */
     @Override
     public Loan save(Loan loan) {
-        if(repository.existsByBookAndNotReturned(loan.getBook()))
-            throw new BusinessException("Book already loaned");
-        return repository.save(loan);
+        Long bookId = loan.getBook() == null ? null : loan.getBook().getId();
+        Lock lock = bookLocks.get(bookId);
+        lock.lock();
+        try {
+            return transactionTemplate.execute(status -> checkout(bookId, loan));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Loan checkout(Long bookId, Loan loan) {
+        if(!bookRepository.isAvailable(bookId))
+            throw new BookAlreadyLoanedException();
+        Loan savedLoan = repository.save(loan);
+        if(bookRepository.markLoaned(bookId, savedLoan.getId()) == 0)
+            throw new BookAlreadyLoanedException();
+        activeLoans.addAfterCommit(1);
+        if (savedLoan.getCustomer() != null)
+            customerStatsRepository.recordLoan(savedLoan.getCustomer());
+        return savedLoan;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Loan> getById(Long id) {
         return repository.findById(id);
     }
 
+    /**
+     * Only the conditional update that flips an open loan to returned counts as a return, so the counters
+     * move once however often the same loan is saved as returned. A returned loan is never reopened: its
+     * book may already be on another loan, which would leave the book with two open loans.
+     */
     @Override
+    @Transactional
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        if (!Boolean.TRUE.equals(loan.getReturned()) && loan.getId() != null && isReturned(loan.getId()))
+            throw new LoanAlreadyReturnedException();
+        boolean returning = Boolean.TRUE.equals(loan.getReturned()) && loan.getId() != null
+                && repository.markReturned(Collections.singletonList(loan.getId())) == 1;
+        Loan updatedLoan = repository.save(loan);
+        if (returning)
+            recordReturns(Collections.singletonList(updatedLoan.getId()));
+        if (updatedLoan.getBook() != null) {
+            if (returning)
+                activeLoans.addAfterCommit(-bookRepository.release(updatedLoan.getBook().getId(), updatedLoan.getId()));
+            bookRepository.touchLoans(updatedLoan.getBook().getId());
+        }
+        return updatedLoan;
+    }
+
+    /**
+     * Locks the loan's state, so a concurrent return waits for this transaction.
+     */
+    private boolean isReturned(Long id) {
+        return repository.findStatesForUpdate(Collections.singletonList(id)).stream()
+                .anyMatch(state -> Boolean.TRUE.equals(state.getReturned()));
     }
 
+    /**
+     * Reads and locks the loans' states, then returns the open ones with set-based updates: marking the
+     * loans returned, moving the counters, releasing the books they hold and bumping those books' loans version.
+     */
     @Override
+    @Transactional
+    public List<LoanReturnResultDTO> returnLoans(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        Map<Long, LoanState> states = new HashMap<>();
+        forEachChunk(distinctIds, chunk -> repository.findStatesForUpdate(chunk)
+                .forEach(state -> states.put(state.getId(), state)));
+        List<LoanReturnResultDTO> results = new ArrayList<>(distinctIds.size());
+        List<Long> returning = new ArrayList<>();
+        Set<Long> books = new HashSet<>();
+        for (Long id : distinctIds) {
+            LoanState state = states.get(id);
+            LoanReturnResultDTO.Status status;
+            if (state == null) {
+                status = LoanReturnResultDTO.Status.NOT_FOUND;
+            } else if (Boolean.TRUE.equals(state.getReturned())) {
+                status = LoanReturnResultDTO.Status.ALREADY_RETURNED;
+            } else {
+                status = LoanReturnResultDTO.Status.RETURNED;
+                returning.add(id);
+                books.add(state.getBookId());
+            }
+            results.add(LoanReturnResultDTO.builder().id(id).status(status).build());
+        }
+        forEachChunk(returning, chunk -> {
+            repository.markReturned(chunk);
+            recordReturns(chunk);
+            activeLoans.addAfterCommit(-bookRepository.releaseAll(chunk));
+        });
+        forEachChunk(new ArrayList<>(books), bookRepository::touchLoansAll);
+        return results;
+    }
+
+    /**
+     * Counts the loans being returned that were overdue and not counted late yet, then takes them off
+     * their customers' on loan count. A book's on loan state is its active loan, released by the caller.
+     */
+    private void recordReturns(List<Long> loanIds) {
+        long mark = repository.nextLateMark();
+        if (repository.markLateIn(loanIds, LoanService.lateUntil(LocalDate.now()), mark) > 0)
+            addLate(mark);
+        customerStatsRepository.recordReturns(loanIds);
+    }
+
+    private void addLate(long mark) {
+        bookRepository.addLate(mark);
+        customerStatsRepository.addLate(mark);
+    }
+
+    @Override
+    @Transactional
+    public int recordLateLoans() {
+        long mark = repository.nextLateMark();
+        int marked = repository.markLate(LoanService.lateUntil(LocalDate.now()), mark);
+        if (marked > 0)
+            addLate(mark);
+        return marked;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<LoanStatsDTO> getBookStats(Long bookId) {
+        return bookRepository.findLoanStatsById(bookId).map(stats -> LoanStatsDTO.builder()
+                .timesBorrowed(stats.getTimesBorrowed())
+                .onLoan(stats.getOnLoan())
+                .lateCount(stats.getLateCount())
+                .build());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<LoanStatsDTO> getCustomerStats(String customer) {
+        return customerStatsRepository.findById(customer).map(stats -> LoanStatsDTO.builder()
+                .timesBorrowed(stats.getTimesBorrowed())
+                .onLoan(stats.getOnLoan())
+                .lateCount(stats.getLateCount())
+                .build());
+    }
+
+    /**
+     * Blank query parameters filter nothing, the same as absent ones.
+     */
+    private static String filterValue(String value) {
+        return StringUtils.hasText(value) ? value : null;
+    }
+
+    private static void forEachChunk(List<Long> ids, Consumer<List<Long>> action) {
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK)
+            action.accept(ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size())));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<Loan> find(LoanFilterDTO filterDTO, Pageable page) {
-        return repository.findByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), page);
+        String isbn = filterValue(filterDTO.getIsbn());
+        String customer = filterValue(filterDTO.getCustomer());
+        if (isbn != null && customer != null)
+            return repository.findByBookIsbnOrCustomer(isbn, customer, page);
+        if (isbn != null)
+            return repository.findByBookIsbn(isbn, page);
+        if (customer != null)
+            return repository.findByCustomer(customer, page);
+        return repository.findAll(page);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Loan> find(LoanFilterDTO filterDTO, Pageable page, boolean withTotal) {
+        if (withTotal)
+            return find(filterDTO, page);
+        String isbn = filterValue(filterDTO.getIsbn());
+        String customer = filterValue(filterDTO.getCustomer());
+        if (isbn != null && customer != null)
+            return repository.findSliceByBookIsbnOrCustomer(isbn, customer, page);
+        if (isbn != null)
+            return repository.findSliceByBookIsbn(isbn, page);
+        if (customer != null)
+            return repository.findSliceByCustomer(customer, page);
+        return repository.findSlice(page);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Loan> find(LoanFilterDTO filterDTO, Cursor cursor, int size, boolean withTotal) {
+        cursor.checkProperty(CURSOR_SORT_PROPERTIES);
+        int limit = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+        String isbn = filterValue(filterDTO.getIsbn());
+        String customer = filterValue(filterDTO.getCustomer());
+        if (isbn != null && customer != null) {
+            List<Loan> rows = repository.findByBookIsbnOrCustomer(isbn, customer, cursor, limit + 1);
+            Long total = withTotal ? repository.countByBookIsbnOrCustomer(isbn, customer) : null;
+            return CursorPage.of(rows, limit, cursor, total);
+        }
+        Specification<Loan> matching = bookIsbnOrCustomer(isbn, customer);
+        List<Loan> rows = repository.findAll(matching, cursor, limit + 1);
+        Long total = withTotal ? repository.count(matching) : null;
+        return CursorPage.of(rows, limit, cursor, total);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
         return repository.findByBook(book, pageable);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<Loan> getLoansByBook(Book book, Pageable pageable, boolean withTotal) {
+        return withTotal ? repository.findByBook(book, pageable) : repository.findSliceByBook(book, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Loan> getAllLateLoans() {
-        final Integer loanDays = 4;
-        LocalDate trheeDaysAgo = LocalDate.now().minusDays(loanDays);
-        return repository.findByLoanDateLessThanAndNotReturned();
+        LocalDate trheeDaysAgo = LoanService.lateUntil(LocalDate.now());
+        return repository.findByLoanDateLessThanAndNotReturned(trheeDaysAgo);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachLateLoanChunk(int chunkSize, Consumer<List<LateLoan>> consumer) {
+        LocalDate loanedUntil = LoanService.lateUntil(LocalDate.now());
+        Pageable chunk = PageRequest.of(0, chunkSize);
+        long lastId = 0L;
+        List<LateLoan> loans;
+        do {
+            loans = repository.findLateLoansAfter(loanedUntil, lastId, chunk);
+            if (loans.isEmpty())
+                return;
+            consumer.accept(loans);
+            lastId = loans.get(loans.size() - 1).getId();
+        } while (loans.size() == chunkSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<Loan> consumer) {
+        repository.forEachInOrder(consumer);
     }
 }
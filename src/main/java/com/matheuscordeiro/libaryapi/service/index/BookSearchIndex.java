@@ -0,0 +1,217 @@
+package com.matheuscordeiro.libaryapi.service.index;
+
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inverted index over book titles and authors. Text is case and accent folded and split into words;
+ * every query word must appear inside some word of the field, which keeps the candidates a superset
+ * of the CONTAINING filter for the books it has seen. The index only narrows the candidates, the
+ * database still applies the original filter to them.
+ * <p>
+ * The candidates are best-effort. The index follows the writes of this instance and is rebuilt from
+ * the primary on an interval, which folds in books other instances wrote; until then such a book can
+ * be missing from a search. While a rebuild runs, searches fall back to the database filter.
+ * <p>
+ * Postings are keyed by every suffix of every word, so a word appearing inside another is a prefix of
+ * one of its suffixes and a lookup is a range of the sorted map rather than a pass over the vocabulary.
+ * Each posting is a sorted {@code long[]} replaced on write, which keeps the index compact and lets
+ * readers use it without locking.
+ */
+@Component
+@Slf4j
+public class BookSearchIndex {
+    private final BookRepository repository;
+    private final int maxCandidates;
+
+    private final ConcurrentNavigableMap<String, long[]> titles = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<String, long[]> authors = new ConcurrentSkipListMap<>();
+    private final Map<Long, Terms> indexed = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public BookSearchIndex(BookRepository repository,
+                           @Value("${application.search-index.max-candidates:1000}") int maxCandidates) {
+        this.repository = repository;
+        this.maxCandidates = maxCandidates;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${application.search-index.rebuild-interval:300000}",
+            initialDelayString = "${application.search-index.rebuild-interval:300000}")
+    @Transactional
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        ready = false;
+        titles.clear();
+        authors.clear();
+        indexed.clear();
+        AtomicLong count = new AtomicLong();
+        repository.forEachInOrder(book -> {
+            put(book);
+            count.incrementAndGet();
+        });
+        ready = true;
+        log.info("search index built for {} books in {} ms", count.get(), System.currentTimeMillis() - started);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Adds the new postings before dropping the ones the book no longer has, so a concurrent search sees
+     * the book under its old or its new words but never under neither. Writes to one id are serialized.
+     */
+    public void put(Book book) {
+        if (book == null || book.getId() == null)
+            return;
+        long id = book.getId();
+        Terms terms = new Terms(tokenize(book.getTitle()), tokenize(book.getAuthor()));
+        indexed.compute(id, (key, previous) -> {
+            Set<String> titleSuffixes = suffixes(terms.title);
+            Set<String> authorSuffixes = suffixes(terms.author);
+            titleSuffixes.forEach(suffix -> addPosting(titles, suffix, id));
+            authorSuffixes.forEach(suffix -> addPosting(authors, suffix, id));
+            if (previous != null) {
+                suffixes(previous.title).stream()
+                        .filter(suffix -> !titleSuffixes.contains(suffix))
+                        .forEach(suffix -> removePosting(titles, suffix, id));
+                suffixes(previous.author).stream()
+                        .filter(suffix -> !authorSuffixes.contains(suffix))
+                        .forEach(suffix -> removePosting(authors, suffix, id));
+            }
+            return terms;
+        });
+    }
+
+    public void remove(Long id) {
+        indexed.computeIfPresent(id, (key, terms) -> {
+            suffixes(terms.title).forEach(suffix -> removePosting(titles, suffix, id));
+            suffixes(terms.author).forEach(suffix -> removePosting(authors, suffix, id));
+            return null;
+        });
+    }
+
+    /**
+     * Ids of the books matching the title and author words. Empty when the index cannot answer:
+     * no text filter, index not built yet, or a term too broad to beat a scan.
+     */
+    public Optional<Set<Long>> search(String title, String author) {
+        if (!ready || (isBlank(title) && isBlank(author)))
+            return Optional.empty();
+        Set<Long> result = null;
+        if (!isBlank(title)) {
+            result = match(titles, tokenize(title), null);
+            if (result == null)
+                return Optional.empty();
+        }
+        if (!isBlank(author)) {
+            result = match(authors, tokenize(author), result);
+            if (result == null)
+                return Optional.empty();
+        }
+        return Optional.of(result);
+    }
+
+    private Set<Long> match(NavigableMap<String, long[]> postings, Set<String> words, Set<Long> narrowed) {
+        if (words.isEmpty())
+            return null;
+        Set<Long> result = narrowed;
+        for (String word : words) {
+            Set<Long> ids = new HashSet<>();
+            for (long[] posting : postings.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                for (long id : posting)
+                    ids.add(id);
+                if (ids.size() > maxCandidates && result == null)
+                    return null;
+            }
+            if (result == null) {
+                result = ids;
+            } else {
+                result.retainAll(ids);
+            }
+        }
+        return result;
+    }
+
+    private static void addPosting(ConcurrentNavigableMap<String, long[]> postings, String suffix, long id) {
+        postings.compute(suffix, (key, ids) -> {
+            if (ids == null)
+                return new long[]{id};
+            int at = Arrays.binarySearch(ids, id);
+            if (at >= 0)
+                return ids;
+            int insert = -at - 1;
+            long[] added = new long[ids.length + 1];
+            System.arraycopy(ids, 0, added, 0, insert);
+            added[insert] = id;
+            System.arraycopy(ids, insert, added, insert + 1, ids.length - insert);
+            return added;
+        });
+    }
+
+    private static void removePosting(ConcurrentNavigableMap<String, long[]> postings, String suffix, long id) {
+        postings.computeIfPresent(suffix, (key, ids) -> {
+            int at = Arrays.binarySearch(ids, id);
+            if (at < 0)
+                return ids;
+            if (ids.length == 1)
+                return null;
+            long[] removed = new long[ids.length - 1];
+            System.arraycopy(ids, 0, removed, 0, at);
+            System.arraycopy(ids, at + 1, removed, at, ids.length - at - 1);
+            return removed;
+        });
+    }
+
+    static Set<String> suffixes(Set<String> words) {
+        Set<String> suffixes = new HashSet<>();
+        for (String word : words) {
+            for (int from = 0; from < word.length(); from++)
+                suffixes.add(word.substring(from));
+        }
+        return suffixes;
+    }
+
+    static Set<String> tokenize(String text) {
+        if (text == null)
+            return Collections.emptySet();
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : folded.split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty())
+                tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static class Terms {
+        private final Set<String> title;
+        private final Set<String> author;
+
+        private Terms(Set<String> title, Set<String> author) {
+            this.title = title;
+            this.author = author;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.matheuscordeiro.libaryapi.service.index;
+
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+/**
+ * In-memory membership index of registered isbns, used to skip the duplicate check query on book creation.
+ * A negative answer is definite; a positive one must be confirmed against the database. Deleted isbns stay
+ * in the filter until the next rebuild, which only costs an extra query for them.
+ */
+@Component
+@Slf4j
+public class IsbnIndex {
+    private final BookRepository repository;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+
+    public IsbnIndex(BookRepository repository,
+                     @Value("${application.isbn-index.expected-insertions:1000000}") long expectedInsertions,
+                     @Value("${application.isbn-index.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.repository = repository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        long size = Math.max(expectedInsertions, repository.count() * 2);
+        BloomFilter next = new BloomFilter(size, falsePositiveProbability);
+        building = next;
+        try (Stream<String> isbns = repository.streamAllIsbns()) {
+            isbns.forEach(next::put);
+        }
+        filter = next;
+        building = null;
+        log.info("isbn index built for {} expected entries in {} ms", size, System.currentTimeMillis() - started);
+    }
+
+    public boolean isReady() {
+        return filter != null;
+    }
+
+    public boolean mightContain(String isbn) {
+        BloomFilter current = filter;
+        return current == null || isbn == null || current.mightContain(isbn);
+    }
+
+    public void add(String isbn) {
+        if (isbn == null)
+            return;
+        BloomFilter current = filter;
+        if (current != null)
+            current.put(isbn);
+        BloomFilter next = building;
+        if (next != null)
+            next.put(isbn);
+    }
+}
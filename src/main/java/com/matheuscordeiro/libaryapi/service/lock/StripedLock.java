@@ -0,0 +1,35 @@
+package com.matheuscordeiro.libaryapi.service.lock;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by hashing the key. Equal keys always get the same lock; different keys
+ * only contend when they land on the same stripe, so more stripes means less false sharing.
+ */
+public class StripedLock {
+    private final Lock[] stripes;
+    private final int mask;
+
+    public StripedLock(int stripes) {
+        if (stripes < 1)
+            throw new IllegalArgumentException("Stripes must be positive");
+        int size = stripes == 1 ? 1 : Integer.highestOneBit((stripes - 1) << 1);
+        this.stripes = new Lock[size];
+        for (int i = 0; i < size; i++)
+            this.stripes[i] = new ReentrantLock();
+        this.mask = size - 1;
+    }
+
+    public Lock get(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return stripes[hash & mask];
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+}
@@ -0,0 +1,111 @@
+package com.matheuscordeiro.libaryapi.service.mail;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends many single-recipient messages over a few pooled SMTP connections. The batch is split in
+ * slices of at most {@code messages-per-connection} messages, each slice goes out on one connection,
+ * and at most {@code pool-size} slices are sent at the same time.
+ */
+@Component
+public class BulkMailSender {
+    private final JavaMailSenderImpl mailSender;
+    private final int poolSize;
+    private final int messagesPerConnection;
+    private final SmtpTransportPool transports;
+    private final ExecutorService workers;
+    private final Timer sendTimer;
+
+    public BulkMailSender(JavaMailSenderImpl mailSender,
+                          MeterRegistry meterRegistry,
+                          @Value("${application.mail.smtp.pool-size:4}") int poolSize,
+                          @Value("${application.mail.smtp.messages-per-connection:100}") int messagesPerConnection) {
+        this.mailSender = mailSender;
+        this.poolSize = poolSize;
+        this.messagesPerConnection = messagesPerConnection;
+        this.transports = new SmtpTransportPool(mailSender, poolSize);
+        this.workers = Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("smtp-"));
+        this.sendTimer = Timer.builder("library.mail.send")
+                .description("SMTP delivery time of a single mail")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends every message and returns, in the same order, null for a delivered message or the
+     * error that prevented its delivery.
+     */
+    public List<Exception> sendAll(List<SimpleMailMessage> messages) {
+        Exception[] errors = new Exception[messages.size()];
+        int slice = Math.max(1, Math.min(messagesPerConnection, (messages.size() + poolSize - 1) / poolSize));
+        List<CompletableFuture<Void>> slices = new ArrayList<>();
+        for (int from = 0; from < messages.size(); from += slice) {
+            int start = from;
+            int end = Math.min(from + slice, messages.size());
+            slices.add(CompletableFuture.runAsync(() -> sendSlice(messages, start, end, errors), workers));
+        }
+        CompletableFuture.allOf(slices.toArray(new CompletableFuture[0])).join();
+        return Arrays.asList(errors);
+    }
+
+    private void sendSlice(List<SimpleMailMessage> messages, int start, int end, Exception[] errors) {
+        Transport transport = null;
+        for (int i = start; i < end; i++) {
+            try {
+                MimeMessage mime = toMimeMessage(messages.get(i));
+                if (transport == null)
+                    transport = transports.borrow();
+                Transport connection = transport;
+                sendTimer.recordCallable(() -> {
+                    connection.sendMessage(mime, mime.getAllRecipients());
+                    return null;
+                });
+            } catch (SendFailedException e) {
+                errors[i] = new MailSendException("Recipient rejected", e);
+            } catch (Exception e) {
+                errors[i] = e instanceof MailSendException ? e : new MailSendException("Failed to send mail", e);
+                if (transport != null) {
+                    transports.invalidate(transport);
+                    transport = null;
+                }
+            }
+        }
+        if (transport != null)
+            transports.release(transport);
+    }
+
+    private MimeMessage toMimeMessage(SimpleMailMessage message) throws MessagingException {
+        MimeMessage mime = mailSender.createMimeMessage();
+        message.copyTo(new MimeMailMessage(mime));
+        mime.saveChanges();
+        return mime;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+        transports.close();
+    }
+}
@@ -0,0 +1,133 @@
+package com.matheuscordeiro.libaryapi.service.mail;
+
+import com.matheuscordeiro.libaryapi.model.entity.EmailOutbox;
+import com.matheuscordeiro.libaryapi.model.entity.EmailOutbox.Status;
+import com.matheuscordeiro.libaryapi.model.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the email outbox in batches through the {@link BulkMailSender}. Failed mails are retried with an
+ * exponential backoff until they run out of attempts; mails claimed by a dispatcher that died are
+ * released again after the claim timeout.
+ */
+@Component
+@Slf4j
+public class EmailOutboxDispatcher {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository repository;
+    private final BulkMailSender mailSender;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration claimTimeout;
+
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository repository,
+                                 BulkMailSender mailSender,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${application.mail.outbox.batch-size:100}") int batchSize,
+                                 @Value("${application.mail.outbox.max-attempts:5}") int maxAttempts,
+                                 @Value("${application.mail.outbox.backoff:30s}") Duration backoff,
+                                 @Value("${application.mail.outbox.claim-timeout:10m}") Duration claimTimeout) {
+        this.repository = repository;
+        this.mailSender = mailSender;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.claimTimeout = claimTimeout;
+        Gauge.builder("library.mail.outbox.pending", repository, outbox -> outbox.countByStatus(Status.PENDING))
+                .description("Mails waiting in the outbox")
+                .register(meterRegistry);
+        this.sent = meterRegistry.counter("library.mail.outbox.sent");
+        this.retried = meterRegistry.counter("library.mail.outbox.retried");
+        this.failed = meterRegistry.counter("library.mail.outbox.failed");
+    }
+
+    @Scheduled(fixedDelayString = "${application.mail.outbox.poll-interval:5000}")
+    public void dispatch() {
+        int released = repository.releaseStale(LocalDateTime.now().minus(claimTimeout), Status.SENDING, Status.PENDING);
+        if (released > 0)
+            log.warn("released {} outbox mails left claimed for more than {}", released, claimTimeout);
+        List<EmailOutbox> batch;
+        do {
+            batch = claim();
+            if (!batch.isEmpty())
+                deliver(batch);
+        } while (batch.size() == batchSize);
+    }
+
+    private List<EmailOutbox> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> due = repository.findDueIds(Status.PENDING, now, PageRequest.of(0, batchSize));
+        if (due.isEmpty())
+            return Collections.emptyList();
+        String token = UUID.randomUUID().toString();
+        repository.claim(due, token, now, Status.PENDING, Status.SENDING);
+        return repository.findByClaimToken(token);
+    }
+
+    private void deliver(List<EmailOutbox> batch) {
+        List<Exception> errors = mailSender.sendAll(batch.stream()
+                .map(EmailOutboxDispatcher::toMessage)
+                .collect(Collectors.toList()));
+        List<Long> delivered = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Exception error = errors.get(i);
+            if (error == null) {
+                delivered.add(batch.get(i).getId());
+            } else {
+                retryLater(batch.get(i), error);
+            }
+        }
+        if (!delivered.isEmpty()) {
+            repository.markSent(delivered, LocalDateTime.now(), Status.SENT);
+            sent.increment(delivered.size());
+        }
+    }
+
+    private static SimpleMailMessage toMessage(EmailOutbox mail) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(mail.getSender());
+        message.setTo(mail.getRecipient());
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getBody());
+        return message;
+    }
+
+    private void retryLater(EmailOutbox mail, Exception error) {
+        int attempts = mail.getAttempts() + 1;
+        String reason = String.valueOf(error.getMessage());
+        if (reason.length() > MAX_ERROR_LENGTH)
+            reason = reason.substring(0, MAX_ERROR_LENGTH);
+        if (attempts >= maxAttempts) {
+            repository.reschedule(mail.getId(), Status.FAILED, null, reason);
+            failed.increment();
+            log.error("giving up on outbox mail {} to {} after {} attempts: {}", mail.getId(), mail.getRecipient(), attempts, reason);
+            return;
+        }
+        LocalDateTime next = LocalDateTime.now().plus(backoff.multipliedBy(1L << (attempts - 1)));
+        repository.reschedule(mail.getId(), Status.PENDING, next, reason);
+        retried.increment();
+        log.warn("outbox mail {} to {} failed, retrying at {}: {}", mail.getId(), mail.getRecipient(), next, reason);
+    }
+}
@@ -0,0 +1,65 @@
+package com.matheuscordeiro.libaryapi.service.mail;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import javax.mail.MessagingException;
+import javax.mail.Transport;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Keeps up to {@code size} authenticated SMTP connections open between batches. A connection the
+ * server dropped is noticed on borrow and replaced.
+ */
+@Slf4j
+class SmtpTransportPool implements AutoCloseable {
+    private final JavaMailSenderImpl mailSender;
+    private final BlockingQueue<Transport> idle;
+
+    SmtpTransportPool(JavaMailSenderImpl mailSender, int size) {
+        this.mailSender = mailSender;
+        this.idle = new ArrayBlockingQueue<>(size);
+    }
+
+    Transport borrow() throws MessagingException {
+        Transport transport;
+        while ((transport = idle.poll()) != null) {
+            if (transport.isConnected())
+                return transport;
+            close(transport);
+        }
+        return connect();
+    }
+
+    void release(Transport transport) {
+        if (!transport.isConnected() || !idle.offer(transport))
+            close(transport);
+    }
+
+    void invalidate(Transport transport) {
+        close(transport);
+    }
+
+    @Override
+    public void close() {
+        Transport transport;
+        while ((transport = idle.poll()) != null)
+            close(transport);
+    }
+
+    private Transport connect() throws MessagingException {
+        String protocol = mailSender.getProtocol() == null ? JavaMailSenderImpl.DEFAULT_PROTOCOL : mailSender.getProtocol();
+        Transport transport = mailSender.getSession().getTransport(protocol);
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        return transport;
+    }
+
+    private static void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("failed to close smtp transport", e);
+        }
+    }
+}
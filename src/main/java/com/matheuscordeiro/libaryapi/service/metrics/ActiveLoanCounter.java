@@ -0,0 +1,61 @@
+package com.matheuscordeiro.libaryapi.service.metrics;
+
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Books on loan, kept in memory for the {@code library.loans.active} gauge so a scrape never reaches the
+ * database. Checkouts and returns of this instance move it once they commit; it is counted from the books'
+ * active loans when the application is ready and again on an interval, which folds in the loans other
+ * instances changed.
+ */
+@Component
+public class ActiveLoanCounter {
+    private final BookRepository bookRepository;
+    private final AtomicLong active = new AtomicLong();
+
+    public ActiveLoanCounter(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${application.metrics.active-loans.resync-interval:300000}",
+            initialDelayString = "${application.metrics.active-loans.resync-interval:300000}")
+    public void resync() {
+        active.set(bookRepository.countByActiveLoanIdIsNotNull());
+    }
+
+    public long get() {
+        return active.get();
+    }
+
+    public void add(long delta) {
+        active.addAndGet(delta);
+    }
+
+    /**
+     * Adds the delta once the current transaction commits, so a rolled back checkout or return never counts;
+     * outside a transaction it is added right away.
+     */
+    public void addAfterCommit(long delta) {
+        if (delta == 0)
+            return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                add(delta);
+            }
+        });
+    }
+}
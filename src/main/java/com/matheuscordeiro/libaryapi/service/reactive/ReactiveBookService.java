@@ -0,0 +1,81 @@
+package com.matheuscordeiro.libaryapi.service.reactive;
+
+import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.exception.DuplicateIsbnException;
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.reactive.ReactiveBookRepository;
+import com.matheuscordeiro.libaryapi.model.repository.reactive.ReactiveLoanRepository;
+import com.matheuscordeiro.libaryapi.service.index.BookSearchIndex;
+import com.matheuscordeiro.libaryapi.service.index.IsbnIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the isbn and search indexes of this instance in step with its writes, like the servlet service.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveBookService {
+    private final ReactiveBookRepository repository;
+    private final ReactiveLoanRepository loanRepository;
+    private final IsbnIndex isbnIndex;
+    private final BookSearchIndex searchIndex;
+
+    public Mono<Book> save(Book book) {
+        Mono<Boolean> exists = isbnIndex.mightContain(book.getIsbn())
+                ? repository.existsByIsbn(book.getIsbn())
+                : Mono.just(false);
+        return exists
+                .flatMap(duplicate -> duplicate
+                        ? Mono.<Book>error(new DuplicateIsbnException())
+                        : repository.insert(book))
+                .onErrorMap(DataIntegrityViolationException.class, e -> new DuplicateIsbnException())
+                .doOnNext(saved -> {
+                    isbnIndex.add(saved.getIsbn());
+                    searchIndex.put(saved);
+                });
+    }
+
+    public Mono<Book> getById(Long id) {
+        return repository.findById(id);
+    }
+
+    public Mono<Book> getBookByIsbn(String isbn) {
+        return repository.findByIsbn(isbn);
+    }
+
+    public Mono<Book> update(Book book) {
+        if (book == null || book.getId() == null)
+            return Mono.error(new IllegalArgumentException("Book id cant be null"));
+        return repository.update(book)
+                .flatMap(updated -> updated == 0
+                        ? Mono.<Book>error(new BusinessException("Book was changed concurrently."))
+                        : Mono.just(book.toBuilder().version(book.getVersion() + 1).build()))
+                .doOnNext(searchIndex::put);
+    }
+
+    public Mono<Void> delete(Book book) {
+        if (book == null || book.getId() == null)
+            return Mono.error(new IllegalArgumentException("Book id cant be null"));
+        return repository.deleteById(book.getId())
+                .doOnNext(deleted -> searchIndex.remove(book.getId()))
+                .then();
+    }
+
+    public Mono<Slice<Book>> find(Book filter, boolean availableOnly, Pageable pageable, boolean withTotal) {
+        return ReactivePages.of(repository.findAll(filter, availableOnly, pageable), pageable,
+                repository.count(filter, availableOnly), withTotal);
+    }
+
+    public Mono<Slice<Loan>> getLoansByBook(Book book, Pageable pageable, boolean withTotal) {
+        return ReactivePages.of(loanRepository.findByBook(book.getId(), pageable), pageable,
+                loanRepository.countByBook(book.getId()), withTotal);
+    }
+}
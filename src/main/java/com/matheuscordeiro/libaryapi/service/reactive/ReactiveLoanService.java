@@ -0,0 +1,85 @@
+package com.matheuscordeiro.libaryapi.service.reactive;
+
+import com.matheuscordeiro.libaryapi.api.dto.LoanFilterDTO;
+import com.matheuscordeiro.libaryapi.exception.BookAlreadyLoanedException;
+import com.matheuscordeiro.libaryapi.exception.LoanAlreadyReturnedException;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.reactive.ReactiveBookRepository;
+import com.matheuscordeiro.libaryapi.model.repository.reactive.ReactiveLoanRepository;
+import com.matheuscordeiro.libaryapi.service.LoanService;
+import com.matheuscordeiro.libaryapi.service.metrics.ActiveLoanCounter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Same single-active-loan rule as the servlet service: the loan insert and the conditional update of
+ * the book's active loan commit together or not at all.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveLoanService {
+    private final ReactiveLoanRepository repository;
+    private final ReactiveBookRepository bookRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final ActiveLoanCounter activeLoans;
+
+    public Mono<Loan> save(Loan loan) {
+        if (loan.getBook().getActiveLoanId() != null)
+            return Mono.error(new BookAlreadyLoanedException());
+        return repository.insert(loan)
+                .flatMap(saved -> bookRepository.markLoaned(saved.getBook().getId(), saved.getId())
+                        .flatMap(updated -> updated == 0
+                                ? Mono.<Loan>error(new BookAlreadyLoanedException())
+                                : recordCustomerLoan(saved)))
+                .as(transactionalOperator::transactional)
+                .doOnNext(saved -> activeLoans.add(1));
+    }
+
+    private Mono<Loan> recordCustomerLoan(Loan loan) {
+        if (loan.getCustomer() == null)
+            return Mono.just(loan);
+        return repository.recordCustomerLoan(loan.getCustomer()).thenReturn(loan);
+    }
+
+    public Mono<Loan> getById(Long id) {
+        return repository.findById(id);
+    }
+
+    /**
+     * Like the servlet service, only the update that flips an open loan to returned releases the book and
+     * moves the counters, and a returned loan is never reopened.
+     */
+    public Mono<Loan> returnBook(Loan loan, boolean returned) {
+        if (!returned && Boolean.TRUE.equals(loan.getReturned()))
+            return Mono.error(new LoanAlreadyReturnedException());
+        Mono<Integer> released = returned
+                ? repository.markReturned(loan.getId()).flatMap(flipped -> flipped == 0 ? Mono.just(0)
+                        : repository.recordReturn(loan.getId(), LoanService.lateUntil(LocalDate.now()))
+                        .then(bookRepository.release(loan.getBook().getId(), loan.getId())))
+                : Mono.just(0);
+        return released
+                .flatMap(count -> bookRepository.touchLoans(loan.getBook().getId()).thenReturn(count))
+                .as(transactionalOperator::transactional)
+                .map(count -> {
+                    activeLoans.add(-count);
+                    loan.setReturned(returned);
+                    return loan;
+                });
+    }
+
+    public Mono<Slice<Loan>> find(LoanFilterDTO filterDTO, Pageable pageable, boolean withTotal) {
+        String isbn = StringUtils.hasText(filterDTO.getIsbn()) ? filterDTO.getIsbn() : null;
+        String customer = StringUtils.hasText(filterDTO.getCustomer()) ? filterDTO.getCustomer() : null;
+        return ReactivePages.of(repository.findByBookIsbnOrCustomer(isbn, customer, pageable), pageable,
+                repository.countByBookIsbnOrCustomer(isbn, customer), withTotal);
+    }
+}
@@ -0,0 +1,26 @@
+package com.matheuscordeiro.libaryapi.service.reactive;
+
+import com.matheuscordeiro.libaryapi.model.repository.SliceQuery;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Pages of the reactive repositories, which read one row past the page. The count is only subscribed when the
+ * total was asked for.
+ */
+final class ReactivePages {
+
+    private ReactivePages() {
+    }
+
+    static <T> Mono<Slice<T>> of(Flux<T> rows, Pageable pageable, Mono<Long> count, boolean withTotal) {
+        if (!withTotal)
+            return rows.collectList().map(list -> SliceQuery.of(list, pageable));
+        return Mono.zip(rows.collectList(), count)
+                .<Slice<T>>map(page -> new PageImpl<>(
+                        SliceQuery.of(page.getT1(), pageable).getContent(), pageable, page.getT2()));
+    }
+}
@@ -0,0 +1,45 @@
+-- Schema as Hibernate generated it before migrations took over.
+
+create sequence book_seq start with 1 increment by 50;
+create sequence email_outbox_seq start with 1 increment by 50;
+
+create table book (
+    id             bigint       not null,
+    title          varchar(255),
+    author         varchar(255),
+    isbn           varchar(255),
+    active_loan_id bigint,
+    primary key (id)
+);
+
+create index idx_book_active_loan on book (active_loan_id);
+
+create table loan (
+    id             bigint       generated by default as identity,
+    customer       varchar(255),
+    costumer_email varchar(255),
+    id_book        bigint,
+    loan_date      date,
+    returned       boolean,
+    primary key (id),
+    constraint fk_loan_book foreign key (id_book) references book (id)
+);
+
+create table email_outbox (
+    id              bigint        not null,
+    sender          varchar(255)  not null,
+    recipient       varchar(255)  not null,
+    subject         varchar(255),
+    body            varchar(4000),
+    status          varchar(16)   not null,
+    attempts        integer       not null,
+    next_attempt_at timestamp,
+    claim_token     varchar(255),
+    claimed_at      timestamp,
+    created_at      timestamp,
+    sent_at         timestamp,
+    last_error      varchar(1000),
+    primary key (id)
+);
+
+create index idx_email_outbox_due on email_outbox (status, next_attempt_at);
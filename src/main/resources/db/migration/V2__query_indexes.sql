@@ -0,0 +1,11 @@
+-- BookRepository.findByIsbn, existsByIsbn, findExistingIsbns and the isbn side of the loan filter.
+create unique index ux_book_isbn on book (isbn);
+
+-- LoanRepository.existsByBookAndNotReturned and findByBook.
+create index idx_loan_book_returned on loan (id_book, returned);
+
+-- LoanRepository.findByLoanDateLessThanAndNotReturned and findLateLoansAfter.
+create index idx_loan_date_returned on loan (loan_date, returned);
+
+-- Customer side of LoanRepository.findByBookIsbnOrCustomer.
+create index idx_loan_customer on loan (customer);
@@ -0,0 +1,5 @@
+-- Book.version: optimistic lock and ETag of GET /api/books/{id}.
+alter table book add column version bigint default 0 not null;
+
+-- Book.loansVersion: bumped whenever a loan of the book changes, ETag of GET /api/books/{id}/loans.
+alter table book add column loans_version bigint default 0 not null;
@@ -0,0 +1,22 @@
+-- Per book loan counters, kept current by the loan updates. "On loan" is active_loan_id being set.
+alter table book add column times_borrowed bigint default 0 not null;
+alter table book add column late_count bigint default 0 not null;
+
+-- Set once, when a loan is first seen past its due date; rows sharing a mark are counted together.
+alter table loan add column late_mark bigint;
+create index idx_loan_late_mark on loan (late_mark);
+
+create table customer_loan_stats (
+    customer       varchar(255) not null,
+    times_borrowed bigint       default 0 not null,
+    on_loan        bigint       default 0 not null,
+    late_count     bigint       default 0 not null,
+    primary key (customer)
+);
+
+-- Late counts start at zero; the next late-loan run marks the loans that are already overdue.
+update book b set times_borrowed = (select count(*) from loan l where l.id_book = b.id);
+
+insert into customer_loan_stats (customer, times_borrowed, on_loan, late_count)
+select customer, count(*), sum(case when returned = true then 0 else 1 end), 0
+from loan where customer is not null group by customer;
@@ -0,0 +1,5 @@
+-- Only LoanRepository.existsByBookAndNotReturned read the returned column of idx_loan_book_returned, and
+-- checkouts no longer call it. findByBook, findByBookIsbn and the isbn side of the loan filter select by
+-- book in id order, which this index owns instead of the engine's foreign key index.
+drop index idx_loan_book_returned;
+create index idx_loan_book on loan (id_book, id);
@@ -0,0 +1,3 @@
+-- Marks of the late-loan runs and returns (LoanStatsSql.NEXT_LATE_MARK). The benchmark seed stamps its loans
+-- with 0, below the first value.
+create sequence late_mark_seq start with 1;
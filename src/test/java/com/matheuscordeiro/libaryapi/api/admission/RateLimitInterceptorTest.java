@@ -0,0 +1,97 @@
+package com.matheuscordeiro.libaryapi.api.admission;
+
+import com.matheuscordeiro.libaryapi.exception.OverloadedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class RateLimitInterceptorTest {
+    MeterRegistry meterRegistry;
+    RateLimitInterceptor interceptor;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Map<RouteClass, Supplier<TokenBucket>> budgets = new EnumMap<>(RouteClass.class);
+        budgets.put(RouteClass.SEARCH, () -> new TokenBucket(1, 0.001));
+        budgets.put(RouteClass.WRITE, () -> new TokenBucket(1, 0.001));
+        budgets.put(RouteClass.LOOKUP, () -> new TokenBucket(10, 0.001));
+        ClientRateLimiter limiter = new ClientRateLimiter(budgets, Set.of("a", "b"), Duration.ofMinutes(1), 100, meterRegistry);
+        interceptor = new RateLimitInterceptor("X-API-Key", limiter);
+    }
+
+    @Test
+    @DisplayName("Must reject a client over its search budget and count the rejection")
+    public void rejectSearchTest() {
+        assertThat(interceptor.preHandle(request("GET", "/api/books", "a"), new MockHttpServletResponse(), null)).isTrue();
+
+        Throwable exception = catchThrowable(() ->
+                interceptor.preHandle(request("GET", "/api/books", "a"), new MockHttpServletResponse(), null));
+
+        assertThat(exception).isInstanceOf(OverloadedException.class);
+        assertThat(((OverloadedException) exception).getRetryAfterSeconds()).isPositive();
+        assertThat(meterRegistry.get(ClientRateLimiter.REJECTED_COUNTER)
+                .tag("route", "search")
+                .tag("reason", "rate_limit")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Must keep separate budgets per route class and per client")
+    public void separateBudgetsTest() {
+        interceptor.preHandle(request("GET", "/api/books", "a"), new MockHttpServletResponse(), null);
+
+        assertThat(interceptor.preHandle(request("POST", "/api/loans", "a"), new MockHttpServletResponse(), null)).isTrue();
+        assertThat(interceptor.preHandle(request("GET", "/api/books/{id}", "a"), new MockHttpServletResponse(), null)).isTrue();
+        assertThat(interceptor.preHandle(request("GET", "/api/books", "b"), new MockHttpServletResponse(), null)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Must tell clients without an API key apart by their address")
+    public void remoteAddressTest() {
+        MockHttpServletRequest first = request("GET", "/api/books", null);
+        first.setRemoteAddr("10.0.0.1");
+        MockHttpServletRequest second = request("GET", "/api/books", null);
+        second.setRemoteAddr("10.0.0.2");
+
+        assertThat(interceptor.preHandle(first, new MockHttpServletResponse(), null)).isTrue();
+        assertThat(interceptor.preHandle(second, new MockHttpServletResponse(), null)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Must charge unknown API keys to the remote address")
+    public void unknownApiKeyTest() {
+        MockHttpServletRequest first = request("GET", "/api/books", "rotated-1");
+        first.setRemoteAddr("10.0.0.1");
+        MockHttpServletRequest second = request("GET", "/api/books", "rotated-2");
+        second.setRemoteAddr("10.0.0.1");
+
+        assertThat(interceptor.preHandle(first, new MockHttpServletResponse(), null)).isTrue();
+        Throwable exception = catchThrowable(() -> interceptor.preHandle(second, new MockHttpServletResponse(), null));
+
+        assertThat(exception).isInstanceOf(OverloadedException.class);
+        assertThat(interceptor.preHandle(request("GET", "/api/books", "a"), new MockHttpServletResponse(), null)).isTrue();
+    }
+
+    private static MockHttpServletRequest request(String method, String pattern, String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        if (apiKey != null)
+            request.addHeader("X-API-Key", apiKey);
+        return request;
+    }
+}
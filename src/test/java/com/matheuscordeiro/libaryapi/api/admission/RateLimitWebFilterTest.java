@@ -0,0 +1,67 @@
+package com.matheuscordeiro.libaryapi.api.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitWebFilterTest {
+    RateLimitWebFilter filter;
+    AtomicInteger passed;
+    WebFilterChain chain;
+
+    @BeforeEach
+    public void setUp() {
+        Map<RouteClass, Supplier<TokenBucket>> budgets = new EnumMap<>(RouteClass.class);
+        budgets.put(RouteClass.SEARCH, () -> new TokenBucket(1, 0.001));
+        budgets.put(RouteClass.WRITE, () -> new TokenBucket(1, 0.001));
+        budgets.put(RouteClass.LOOKUP, () -> new TokenBucket(10, 0.001));
+        filter = new RateLimitWebFilter("X-API-Key",
+                new ClientRateLimiter(budgets, Set.of("a", "b"), Duration.ofMinutes(1), 100, new SimpleMeterRegistry()));
+        passed = new AtomicInteger();
+        chain = exchange -> Mono.fromRunnable(passed::incrementAndGet);
+    }
+
+    @Test
+    @DisplayName("Must answer 429 with a Retry-After once a reactive client is over its search budget")
+    public void rejectSearchTest() {
+        filter.filter(exchange("/api/books?title=a"), chain).block();
+        MockServerWebExchange rejected = exchange("/api/books?title=b");
+
+        filter.filter(rejected, chain).block();
+
+        assertThat(passed.get()).isEqualTo(1);
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Must charge reactive lookups to their own budget")
+    public void lookupBudgetTest() {
+        filter.filter(exchange("/api/books"), chain).block();
+
+        filter.filter(exchange("/api/books/1"), chain).block();
+        filter.filter(exchange("/api/loans/1"), chain).block();
+
+        assertThat(passed.get()).isEqualTo(3);
+    }
+
+    private static MockServerWebExchange exchange(String uri) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(uri).header("X-API-Key", "a"));
+    }
+}
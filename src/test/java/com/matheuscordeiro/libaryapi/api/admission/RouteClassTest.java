@@ -0,0 +1,63 @@
+package com.matheuscordeiro.libaryapi.api.admission;
+
+import com.matheuscordeiro.libaryapi.api.resource.BookController;
+import com.matheuscordeiro.libaryapi.api.resource.CustomerController;
+import com.matheuscordeiro.libaryapi.api.resource.LoanController;
+import com.matheuscordeiro.libaryapi.api.resource.reactive.ReactiveBookController;
+import com.matheuscordeiro.libaryapi.api.resource.reactive.ReactiveLoanController;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RouteClassTest {
+
+    @Test
+    @DisplayName("Must class every mapped read the same way by handler pattern and by path")
+    public void patternAndPathAgreeTest() {
+        Set<String> reads = mappedReads(BookController.class, LoanController.class, CustomerController.class,
+                ReactiveBookController.class, ReactiveLoanController.class);
+
+        assertThat(RouteClass.READS.keySet()).containsAll(reads);
+        for (String pattern : reads) {
+            String path = pattern.replaceAll("\\{[^}]+}", "1");
+            assertThat(RouteClass.ofPath("GET", path)).as(path).isEqualTo(RouteClass.of("GET", pattern));
+            assertThat(RouteClass.ofPath("GET", path + "/")).as(path + "/").isEqualTo(RouteClass.of("GET", pattern));
+        }
+    }
+
+    @Test
+    @DisplayName("Must charge exports and the loans of a book as searches")
+    public void listingReadsTest() {
+        assertThat(RouteClass.of("GET", "/api/books/export")).isEqualTo(RouteClass.SEARCH);
+        assertThat(RouteClass.ofPath("GET", "/api/books/export")).isEqualTo(RouteClass.SEARCH);
+        assertThat(RouteClass.ofPath("GET", "/api/books/1/loans")).isEqualTo(RouteClass.SEARCH);
+        assertThat(RouteClass.ofPath("GET", "/api/books/1")).isEqualTo(RouteClass.LOOKUP);
+        assertThat(RouteClass.ofPath("DELETE", "/api/books/1")).isEqualTo(RouteClass.WRITE);
+    }
+
+    private static Set<String> mappedReads(Class<?>... controllers) {
+        Set<String> reads = new TreeSet<>();
+        for (Class<?> controller : controllers) {
+            String prefix = AnnotatedElementUtils.findMergedAnnotation(controller, RequestMapping.class).path()[0];
+            for (Method method : controller.getDeclaredMethods()) {
+                RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+                if (mapping == null || !Arrays.asList(mapping.method()).contains(RequestMethod.GET))
+                    continue;
+                if (mapping.path().length == 0)
+                    reads.add(prefix);
+                for (String path : mapping.path())
+                    reads.add(path.isEmpty() ? prefix : prefix + "/" + path);
+            }
+        }
+        return reads;
+    }
+}
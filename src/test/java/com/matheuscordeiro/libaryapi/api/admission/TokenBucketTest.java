@@ -0,0 +1,51 @@
+package com.matheuscordeiro.libaryapi.api.admission;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenBucketTest {
+
+    @Test
+    @DisplayName("Must admit a burst up to the capacity and then only at the refill rate")
+    public void burstThenRefillTest() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(2, 4, now::get);
+
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Must not refill past the capacity")
+    public void capacityTest() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(1, 1, now::get);
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+        assertThat(bucket.secondsUntilNextToken()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Must tell how long until the next token in whole seconds")
+    public void secondsUntilNextTokenTest() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(1, 0.2, now::get);
+        bucket.tryAcquire();
+
+        assertThat(bucket.secondsUntilNextToken()).isEqualTo(5);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(2500));
+        assertThat(bucket.secondsUntilNextToken()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,55 @@
+package com.matheuscordeiro.libaryapi.api.mapper;
+
+import com.matheuscordeiro.libaryapi.api.dto.BookDTO;
+import com.matheuscordeiro.libaryapi.api.dto.LoanDTO;
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoanMapperTest {
+    BookMapper bookMapper;
+    LoanMapper loanMapper;
+
+    @BeforeEach
+    public void setUp() {
+        this.bookMapper = new BookMapperImpl();
+        this.loanMapper = new LoanMapperImpl(bookMapper);
+    }
+
+    @Test
+    @DisplayName("Must map a loan with its book to a dto")
+    public void loanToDtoTest() {
+        Book book = Book.builder().id(1L).title("Future").author("Junior").isbn("123").build();
+        Loan loan = Loan.builder()
+                .id(2L)
+                .book(book)
+                .customer("Junior")
+                .costumerEmail("customer@email.com")
+                .loanDate(LocalDate.now())
+                .build();
+        LoanDTO dto = loanMapper.toDto(loan);
+        assertThat(dto.getId()).isEqualTo(2L);
+        assertThat(dto.getIsbn()).isEqualTo("123");
+        assertThat(dto.getCostumer()).isEqualTo("Junior");
+        assertThat(dto.getEmail()).isEqualTo("customer@email.com");
+        assertThat(dto.getBook().getId()).isEqualTo(1L);
+        assertThat(dto.getBook().getTitle()).isEqualTo("Future");
+    }
+
+    @Test
+    @DisplayName("Must map a book dto to an entity")
+    public void bookDtoToEntityTest() {
+        BookDTO dto = BookDTO.builder().title("Future").author("Junior").isbn("123").build();
+        Book book = bookMapper.toEntity(dto);
+        assertThat(book.getId()).isNull();
+        assertThat(book.getTitle()).isEqualTo("Future");
+        assertThat(book.getAuthor()).isEqualTo("Junior");
+        assertThat(book.getIsbn()).isEqualTo("123");
+    }
+}
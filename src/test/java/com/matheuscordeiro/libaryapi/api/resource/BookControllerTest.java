@@ -2,23 +2,32 @@ package com.matheuscordeiro.libaryapi.api.resource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.matheuscordeiro.libaryapi.api.dto.BookDTO;
+import com.matheuscordeiro.libaryapi.api.dto.LoanStatsDTO;
+import com.matheuscordeiro.libaryapi.api.mapper.BookMapperImpl;
+import com.matheuscordeiro.libaryapi.api.mapper.LoanMapperImpl;
 import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.exception.OverloadedException;
 import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
 import com.matheuscordeiro.libaryapi.service.BookService;
 import com.matheuscordeiro.libaryapi.service.LoanService;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.BDDMockito;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -27,14 +36,18 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = (BookController.class))
+@Import({BookMapperImpl.class, LoanMapperImpl.class})
 @AutoConfigureMockMvc
 public class BookControllerTest {
 
@@ -132,6 +145,85 @@ public class BookControllerTest {
                 .andExpect( jsonPath("isbn").value(createNewBook().getIsbn()));
     }
 
+    @Test
+    @DisplayName("Must tag the book with its version")
+    public void getBookDetailsETagTest() throws Exception {
+        Book book = Book.builder().id(1L).title("Futere").author("Junior").isbn("001").version(3L).build();
+        BDDMockito.given(bookService.getById(1L)).willReturn(Optional.of(book));
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/1"))
+                .accept(MediaType.APPLICATION_JSON);
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"3\""));
+    }
+
+    @Test
+    @DisplayName("Must send the new version as the only ETag when If-None-Match is out of date")
+    public void getBookChangedETagTest() throws Exception {
+        BDDMockito.given(bookService.getVersions(1L)).willReturn(Optional.of(versions(4L, 0L)));
+        Book book = Book.builder().id(1L).title("Futere").author("Junior").isbn("001").version(4L).build();
+        BDDMockito.given(bookService.getById(1L)).willReturn(Optional.of(book));
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/1"))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .accept(MediaType.APPLICATION_JSON);
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    @DisplayName("Must answer not modified without loading the book when the version matches")
+    public void getBookNotModifiedTest() throws Exception {
+        BDDMockito.given(bookService.getVersions(1L)).willReturn(Optional.of(versions(3L, 0L)));
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/1"))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .accept(MediaType.APPLICATION_JSON);
+        mvc
+                .perform(request)
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"3\""));
+        Mockito.verify(bookService, Mockito.never()).getById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Must answer not modified for the loans of a book until one of them changes")
+    public void loansByBookNotModifiedTest() throws Exception {
+        BDDMockito.given(bookService.getVersions(1L)).willReturn(Optional.of(versions(3L, 7L)));
+        mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1/loans"))
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3.7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"3.7\""));
+
+        BDDMockito.given(bookService.getVersions(1L)).willReturn(Optional.of(versions(3L, 8L)));
+        BDDMockito.given(bookService.getById(1L)).willReturn(Optional.of(Book.builder().id(1L).build()));
+        BDDMockito.given(loanService.getLoansByBook(Mockito.any(Book.class), Mockito.any(Pageable.class), Mockito.eq(false)))
+                .willReturn(new SliceImpl<>(Collections.emptyList(), PageRequest.of(0, 10), false));
+        mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1/loans?page=0&size=10"))
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3.7\""))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"3.8\""));
+    }
+
+    @Test
+    @DisplayName("Must get the loan statistics of a book")
+    public void bookStatsTest() throws Exception {
+        BDDMockito.given(loanService.getBookStats(1L))
+                .willReturn(Optional.of(LoanStatsDTO.builder().timesBorrowed(5).onLoan(1).lateCount(2).build()));
+        mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1/stats")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("timesBorrowed").value(5))
+                .andExpect(jsonPath("onLoan").value(1))
+                .andExpect(jsonPath("lateCount").value(2));
+    }
+
     @Test
     @DisplayName("Must return resource not found when the book is missing")
     public void bookNotFoundTest() throws Exception{
@@ -176,7 +268,7 @@ public class BookControllerTest {
         Book updatingBook = Book.builder().id(1L).title("some title").author("some author").isbn("321").build();
         Book updatedBook = Book.builder().id(id).title("Pass").author("Daniel").isbn("001").build();
         BDDMockito.given(bookService.getById(id)).willReturn(Optional.of(updatingBook));
-        BDDMockito.given(bookService.update(updatingBook)).willReturn(updatedBook);
+        BDDMockito.given(bookService.update(Mockito.any(Book.class))).willReturn(updatedBook);
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .put(BOOK_API.concat("/" + 1))
                 .content(json)
@@ -189,6 +281,11 @@ public class BookControllerTest {
                 .andExpect( jsonPath("title").value(createNewBook().getTitle()))
                 .andExpect( jsonPath("author").value(createNewBook().getAuthor()))
                 .andExpect( jsonPath("isbn").value(createNewBook().getIsbn()));
+        ArgumentCaptor<Book> changed = ArgumentCaptor.forClass(Book.class);
+        Mockito.verify(bookService).update(changed.capture());
+        assertThat(changed.getValue()).isNotSameAs(updatingBook);
+        assertThat(changed.getValue().getTitle()).isEqualTo(createNewBook().getTitle());
+        assertThat(updatingBook.getTitle()).isEqualTo("some title");
     }
 
     @Test
@@ -216,9 +313,9 @@ public class BookControllerTest {
                 .author(createNewBook().getAuthor())
                 .isbn(createNewBook().getIsbn())
                 .build();
-        BDDMockito.given(bookService.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+        BDDMockito.given(bookService.find(Mockito.any(Book.class), Mockito.eq(false), Mockito.any(Pageable.class), Mockito.eq(true)))
                 .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 100), 1));
-        String queryString = String.format("?title=%s&author=%s&page=0&size=100",
+        String queryString = String.format("?title=%s&author=%s&count=true&page=0&size=100",
                 book.getTitle(), book.getAuthor());
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .get(BOOK_API.concat(queryString))
@@ -227,9 +324,48 @@ public class BookControllerTest {
                 .perform(request)
                 .andExpect( status().isOk() )
                 .andExpect( jsonPath("content", Matchers.hasSize(1)))
-                .andExpect( jsonPath("totalElements").value(1) )
-                .andExpect( jsonPath("pageable.pageSize").value(100) )
-                .andExpect( jsonPath("pageable.pageNumber").value(0));
+                .andExpect( jsonPath("total").value(1) )
+                .andExpect( jsonPath("size").value(100) )
+                .andExpect( jsonPath("page").value(0))
+                .andExpect( jsonPath("pageable").doesNotExist() );
+    }
+
+    @Test
+    @DisplayName("Must filter the available books")
+    public void findAvailableBooksTest() throws Exception {
+        Book book = Book.builder().id(1L).title("Futere").author("Junior").isbn("001").build();
+        BDDMockito.given(bookService.find(Mockito.any(Book.class), Mockito.eq(true), Mockito.any(Pageable.class), Mockito.eq(false)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 1), true));
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?available=true&page=0&size=1"))
+                .accept(MediaType.APPLICATION_JSON);
+        mvc
+                .perform(request)
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("content", Matchers.hasSize(1)))
+                .andExpect( jsonPath("hasNext").value(true) )
+                .andExpect( jsonPath("total").doesNotExist() );
+    }
+
+    @Test
+    @DisplayName("Must answer 429 with a Retry-After when the search is shed")
+    public void findBooksOverloadedTest() throws Exception {
+        BDDMockito.given(bookService.find(Mockito.any(Book.class), Mockito.eq(false), Mockito.any(Pageable.class), Mockito.eq(false)))
+                .willThrow(new OverloadedException("Too many concurrent searches", 1));
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=Futere"))
+                .accept(MediaType.APPLICATION_JSON);
+        mvc
+                .perform(request)
+                .andExpect( status().isTooManyRequests() )
+                .andExpect( header().string(HttpHeaders.RETRY_AFTER, "1") );
+    }
+
+    private static BookRepository.Versions versions(long version, long loansVersion) {
+        BookRepository.Versions versions = Mockito.mock(BookRepository.Versions.class);
+        BDDMockito.given(versions.getVersion()).willReturn(version);
+        BDDMockito.given(versions.getLoansVersion()).willReturn(loansVersion);
+        return versions;
     }
 
     private BookDTO createNewBook() {
@@ -0,0 +1,262 @@
+package com.matheuscordeiro.libaryapi.api.resource;
+
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.service.BookService;
+import com.matheuscordeiro.libaryapi.service.LoanService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Drives each JSON endpoint through the whole stack and checks, on the request thread, that every connection
+ * is back in the pool before the response body is written and how many statements the request ran. With
+ * open-session-in-view the connection would still be held while serializing, and a loan listing without its
+ * fetch plan would load each book with its own statement.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.generate-unique-name=true",
+        "application.mail.outbox.poll-interval=86400000",
+        "spring.boot.admin.client.enabled=false"
+})
+@AutoConfigureMockMvc
+public class ConnectionHoldTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    BodyWriteProbe probe;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    LoanService loanService;
+
+    Book book;
+    String customer;
+
+    @BeforeEach
+    public void setUp() {
+        customer = "Customer " + System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            Book saved = bookService.save(Book.builder()
+                    .title("Title")
+                    .author(customer)
+                    .isbn(customer + "-" + i)
+                    .build());
+            loanService.save(Loan.builder()
+                    .book(saved)
+                    .customer(customer)
+                    .costumerEmail("customer@email.com")
+                    .loanDate(LocalDate.now())
+                    .build());
+            book = saved;
+        }
+    }
+
+    @Test
+    @DisplayName("Must release the connection before writing a book")
+    public void getBookTest() throws Exception {
+        assertRequest("/api/books/" + book.getId(), 1);
+    }
+
+    @Test
+    @DisplayName("Must release the connection before writing a page of books")
+    public void findBooksTest() throws Exception {
+        assertRequest("/api/books?author=" + customer + "&page=0&size=10", 2);
+    }
+
+    @Test
+    @DisplayName("Must count a page of books only when the total is asked for")
+    public void findBooksWithTotalTest() throws Exception {
+        assertRequest("/api/books?author=" + customer + "&page=0&size=1", 1);
+        assertRequest("/api/books?author=" + customer + "&count=true&page=0&size=1", 2);
+    }
+
+    @Test
+    @DisplayName("Must release the connection before writing the loans of a book")
+    public void loansByBookTest() throws Exception {
+        assertRequest("/api/books/" + book.getId() + "/loans?page=0&size=10", 4);
+    }
+
+    @Test
+    @DisplayName("Must release the connection before writing the stats of a book")
+    public void bookStatsTest() throws Exception {
+        assertRequest("/api/books/" + book.getId() + "/stats", 1);
+    }
+
+    @Test
+    @DisplayName("Must fetch the books of a page of loans with the loans")
+    public void findLoansTest() throws Exception {
+        assertRequest("/api/loans?customer=" + customer + "&page=0&size=10", 2);
+    }
+
+    @Test
+    @DisplayName("Must fetch the books of a page of loans filtered by isbn and customer with the loans")
+    public void findLoansByIsbnOrCustomerTest() throws Exception {
+        assertRequest("/api/loans?isbn=" + book.getIsbn() + "&customer=" + customer + "&page=0&size=10", 2);
+    }
+
+    @Test
+    @DisplayName("Must fetch the books of a slice of loans with the loans")
+    public void findLoansByCursorTest() throws Exception {
+        assertRequest("/api/loans?customer=" + customer + "&cursor=&size=10", 1);
+    }
+
+    @Test
+    @DisplayName("Must release the connection before writing the stats of a customer")
+    public void customerStatsTest() throws Exception {
+        assertRequest("/api/customers/" + customer + "/stats", 1);
+    }
+
+    private void assertRequest(String url, int maxStatements) throws Exception {
+        TrackingDataSource tracking = (TrackingDataSource) dataSource;
+        tracking.track(Thread.currentThread());
+        try {
+            mvc.perform(MockMvcRequestBuilders.get(url).accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        } finally {
+            tracking.track(null);
+        }
+        assertThat(probe.openAtBodyWrite).as("connections open while writing %s", url).isZero();
+        assertThat(tracking.lastReleaseNanos.get()).as("connection hold of %s", url).isLessThanOrEqualTo(probe.bodyWriteNanos);
+        assertThat(tracking.statements.get()).as("statements of %s", url).isLessThanOrEqualTo(maxStatements);
+    }
+
+    @TestConfiguration
+    static class Probes {
+
+        @Bean
+        static BeanPostProcessor trackingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource && !(bean instanceof TrackingDataSource)
+                            ? new TrackingDataSource((DataSource) bean)
+                            : bean;
+                }
+            };
+        }
+
+        @Bean
+        BodyWriteProbe bodyWriteProbe(DataSource dataSource) {
+            return new BodyWriteProbe((TrackingDataSource) dataSource);
+        }
+    }
+
+    /**
+     * Counts the connections and statements of one thread and when its last connection was given back.
+     */
+    static class TrackingDataSource extends DelegatingDataSource {
+        final AtomicLong open = new AtomicLong();
+        final AtomicLong statements = new AtomicLong();
+        final AtomicLong lastReleaseNanos = new AtomicLong();
+        volatile Thread tracked;
+
+        TrackingDataSource(DataSource target) {
+            super(target);
+        }
+
+        void track(Thread thread) {
+            open.set(0);
+            statements.set(0);
+            lastReleaseNanos.set(0);
+            tracked = thread;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return wrap(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return wrap(super.getConnection(username, password));
+        }
+
+        private Connection wrap(Connection connection) {
+            if (Thread.currentThread() != tracked)
+                return connection;
+            open.incrementAndGet();
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.equals("close") && closed.compareAndSet(false, true)) {
+                            open.decrementAndGet();
+                            lastReleaseNanos.set(System.nanoTime());
+                        } else if (name.equals("prepareStatement") || name.equals("prepareCall") || name.equals("createStatement")) {
+                            statements.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    });
+        }
+    }
+
+    @ControllerAdvice
+    static class BodyWriteProbe implements ResponseBodyAdvice<Object> {
+        private final TrackingDataSource dataSource;
+        volatile long openAtBodyWrite;
+        volatile long bodyWriteNanos;
+
+        BodyWriteProbe(TrackingDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+            return true;
+        }
+
+        @Override
+        public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                      ServerHttpRequest request, ServerHttpResponse response) {
+            openAtBodyWrite = dataSource.open.get();
+            bodyWriteNanos = System.nanoTime();
+            return body;
+        }
+    }
+}
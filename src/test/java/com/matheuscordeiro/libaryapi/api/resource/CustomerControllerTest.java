@@ -0,0 +1,58 @@
+package com.matheuscordeiro.libaryapi.api.resource;
+
+import com.matheuscordeiro.libaryapi.api.dto.LoanStatsDTO;
+import com.matheuscordeiro.libaryapi.service.LoanService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.Optional;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = CustomerController.class)
+@AutoConfigureMockMvc
+public class CustomerControllerTest {
+    static final String CUSTOMER_API = "/api/customers";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    LoanService loanService;
+
+    @Test
+    @DisplayName("Must get the loan statistics of a customer")
+    public void customerStatsTest() throws Exception {
+        BDDMockito.given(loanService.getCustomerStats("Junior"))
+                .willReturn(Optional.of(LoanStatsDTO.builder().timesBorrowed(3).onLoan(1).lateCount(1).build()));
+        mvc
+                .perform(MockMvcRequestBuilders.get(CUSTOMER_API.concat("/Junior/stats")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("timesBorrowed").value(3))
+                .andExpect(jsonPath("onLoan").value(1))
+                .andExpect(jsonPath("lateCount").value(1));
+    }
+
+    @Test
+    @DisplayName("Must return resource not found for a customer without loans")
+    public void unknownCustomerStatsTest() throws Exception {
+        BDDMockito.given(loanService.getCustomerStats("Nobody")).willReturn(Optional.empty());
+        mvc
+                .perform(MockMvcRequestBuilders.get(CUSTOMER_API.concat("/Nobody/stats")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -3,7 +3,11 @@ package com.matheuscordeiro.libaryapi.api.resource;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.matheuscordeiro.libaryapi.api.dto.LoanDTO;
 import com.matheuscordeiro.libaryapi.api.dto.LoanFilterDTO;
+import com.matheuscordeiro.libaryapi.api.dto.LoanReturnResultDTO;
+import com.matheuscordeiro.libaryapi.api.dto.ReturnLoansDTO;
 import com.matheuscordeiro.libaryapi.api.dto.ReturnedLoanDTO;
+import com.matheuscordeiro.libaryapi.api.mapper.BookMapperImpl;
+import com.matheuscordeiro.libaryapi.api.mapper.LoanMapperImpl;
 import com.matheuscordeiro.libaryapi.exception.BusinessException;
 import com.matheuscordeiro.libaryapi.model.entity.Book;
 import com.matheuscordeiro.libaryapi.model.entity.Loan;
@@ -20,6 +24,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -40,6 +45,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = LoanController.class)
+@Import({BookMapperImpl.class, LoanMapperImpl.class})
 @AutoConfigureMockMvc
 public class LoanControllerTest {
     static final String LOAN_API = "api/loans";
@@ -125,6 +131,39 @@ public class LoanControllerTest {
         Mockito.verify(loanService, Mockito.times(1)).update(loan);
     }
 
+    @Test
+    @DisplayName("Must return many loans at once and report each of them")
+    public void returnBooksTest() throws Exception {
+        ReturnLoansDTO dto = ReturnLoansDTO.builder().ids(Arrays.asList(1L, 2L)).build();
+        BDDMockito.given(loanService.returnLoans(Arrays.asList(1L, 2L))).willReturn(Arrays.asList(
+                LoanReturnResultDTO.builder().id(1L).status(LoanReturnResultDTO.Status.RETURNED).build(),
+                LoanReturnResultDTO.builder().id(2L).status(LoanReturnResultDTO.Status.NOT_FOUND).build()));
+        String json = new ObjectMapper().writeValueAsString(dto);
+        mvc
+                .perform(
+                        patch(LOAN_API)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json)
+                ).andExpect(status().isOk())
+                .andExpect(jsonPath("[0].status").value("RETURNED"))
+                .andExpect(jsonPath("[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    @DisplayName("Must reject a batch return without ids")
+    public void returnBooksWithoutIdsTest() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(new ReturnLoansDTO());
+        mvc
+                .perform(
+                        patch(LOAN_API)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json)
+                ).andExpect(status().isBadRequest());
+        Mockito.verify(loanService, Mockito.never()).returnLoans(Mockito.any());
+    }
+
     @Test
     @DisplayName("Must return not found when returning a nonexistent book")
     public void returnNonexistentBookTest() throws Exception{
@@ -149,8 +188,8 @@ public class LoanControllerTest {
         loan.setId(id);
         Book book = Book.builder().id(1l).isbn("321").build();
         loan.setBook(book);
-        BDDMockito.given(loanService.find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class))).willReturn(new PageImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 10), 1));
-        String queryString = String.format("?isbn=%s&customer=%s&page=0&size=10",
+        BDDMockito.given(loanService.find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class), Mockito.eq(true))).willReturn(new PageImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 10), 1));
+        String queryString = String.format("?isbn=%s&customer=%s&count=true&page=0&size=10",
                 book.getIsbn(), loan.getCustomer());
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .get(LOAN_API.concat(queryString))
@@ -159,8 +198,9 @@ public class LoanControllerTest {
                 .perform(request)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", Matchers.hasSize(1)))
-                .andExpect(jsonPath("totalElements").value(1))
-                .andExpect(jsonPath("pageable.pageSize").value(10))
-                .andExpect(jsonPath("pageable.pageNumber").value(0));
+                .andExpect(jsonPath("total").value(1))
+                .andExpect(jsonPath("size").value(10))
+                .andExpect(jsonPath("page").value(0))
+                .andExpect(jsonPath("pageable").doesNotExist());
     }
 }
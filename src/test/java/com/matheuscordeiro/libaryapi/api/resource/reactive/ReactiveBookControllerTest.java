@@ -0,0 +1,103 @@
+package com.matheuscordeiro.libaryapi.api.resource.reactive;
+
+import com.matheuscordeiro.libaryapi.api.dto.BookDTO;
+import com.matheuscordeiro.libaryapi.api.mapper.BookMapperImpl;
+import com.matheuscordeiro.libaryapi.api.mapper.LoanMapperImpl;
+import com.matheuscordeiro.libaryapi.config.ReactiveWebConfig;
+import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.service.reactive.ReactiveBookService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles({"test", "reactive"})
+@WebFluxTest(controllers = ReactiveBookController.class)
+@Import({BookMapperImpl.class, LoanMapperImpl.class, ReactiveWebConfig.class})
+public class ReactiveBookControllerTest {
+
+    static String BOOK_API = "/api/books";
+
+    @Autowired
+    WebTestClient client;
+
+    @MockBean
+    ReactiveBookService bookService;
+
+    @Test
+    @DisplayName("Must create a book successfully.")
+    public void createBookTest() {
+        Book savedBook = Book.builder().id(1L).title("Futere").author("Junior").isbn("001").build();
+        BDDMockito.given(bookService.save(Mockito.any(Book.class))).willReturn(Mono.just(savedBook));
+
+        client.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(createNewBook())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("id").isEqualTo(1)
+                .jsonPath("title").isEqualTo("Futere")
+                .jsonPath("isbn").isEqualTo("001");
+    }
+
+    @Test
+    @DisplayName("Must throw a business error when registering a duplicate isbn")
+    public void createBookWithDuplicatedIsbn() {
+        BDDMockito.given(bookService.save(Mockito.any(Book.class)))
+                .willReturn(Mono.error(new BusinessException("Isbn already registered.")));
+
+        client.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(createNewBook())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Must return resource not found when the book does not exist")
+    public void bookNotFoundTest() {
+        BDDMockito.given(bookService.getById(Mockito.anyLong())).willReturn(Mono.empty());
+
+        client.get().uri(BOOK_API + "/1")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Must filter the books")
+    public void findBookTest() {
+        Book book = Book.builder().id(1L).title("Futere").author("Junior").isbn("001").build();
+        BDDMockito.given(bookService.find(Mockito.any(Book.class), Mockito.eq(true), Mockito.any(Pageable.class), Mockito.eq(true)))
+                .willReturn(Mono.just(new PageImpl<>(Arrays.asList(book), PageRequest.of(0, 100), 1)));
+
+        client.get().uri(BOOK_API + "?title=Futere&available=true&count=true&page=0&size=100")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("content.length()").isEqualTo(1)
+                .jsonPath("total").isEqualTo(1)
+                .jsonPath("size").isEqualTo(100);
+    }
+
+    private BookDTO createNewBook() {
+        return BookDTO.builder().title("Futere").author("Junior").isbn("001").build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.matheuscordeiro.libaryapi.config;
+
+import com.matheuscordeiro.libaryapi.api.admission.ClientRateLimiter;
+import com.matheuscordeiro.libaryapi.exception.OverloadedException;
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.when;
+
+public class BookSearchLimitAspectTest {
+    MeterRegistry meterRegistry;
+    BookService target;
+    BookService service;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = Mockito.mock(BookService.class);
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addInterface(BookService.class);
+        factory.addAspect(new BookSearchLimitAspect(meterRegistry, 1));
+        service = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Must reject a search over the concurrency limit without calling the service")
+    public void rejectConcurrentSearchTest() {
+        Book filter = new Book();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        AtomicReference<Throwable> nested = new AtomicReference<>();
+        when(target.find(filter, false, pageRequest)).thenAnswer(invocation -> {
+            nested.set(catchThrowable(() -> service.find(filter, true, pageRequest)));
+            return new PageImpl<Book>(Collections.emptyList());
+        });
+
+        service.find(filter, false, pageRequest);
+
+        assertThat(nested.get()).isInstanceOf(OverloadedException.class);
+        Mockito.verify(target, Mockito.never()).find(filter, true, pageRequest);
+        assertThat(meterRegistry.get(ClientRateLimiter.REJECTED_COUNTER)
+                .tag("route", "book_search")
+                .tag("reason", "concurrency")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Must release the permit when a search completes")
+    public void releasePermitTest() {
+        Book filter = new Book();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Page<Book> page = new PageImpl<Book>(Collections.emptyList());
+        when(target.find(filter, false, pageRequest)).thenReturn(page);
+
+        service.find(filter, false, pageRequest);
+
+        assertThat(service.find(filter, false, pageRequest)).isSameAs(page);
+        assertThat(meterRegistry.get("library.admission.book_search.in_flight").gauge().value()).isZero();
+    }
+}
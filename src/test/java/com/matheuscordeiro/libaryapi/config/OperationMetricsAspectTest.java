@@ -0,0 +1,95 @@
+package com.matheuscordeiro.libaryapi.config;
+
+import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.exception.DuplicateIsbnException;
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.when;
+
+public class OperationMetricsAspectTest {
+    MeterRegistry meterRegistry;
+    BookService target;
+    BookService service;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = Mockito.mock(BookService.class);
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addInterface(BookService.class);
+        factory.addAspect(new OperationMetricsAspect(meterRegistry));
+        service = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Must time service calls tagged with the component, method and outcome")
+    public void timeOutcomesTest() {
+        when(target.getById(1L)).thenReturn(Optional.of(Book.builder().id(1L).build()));
+        when(target.getById(2L)).thenReturn(Optional.empty());
+
+        service.getById(1L);
+        service.getById(2L);
+        service.getById(2L);
+
+        assertThat(timer("getById", "success").count()).isEqualTo(1);
+        assertThat(timer("getById", "not_found").count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Must tag business rejections with their outcome and rethrow them")
+    public void timeBusinessRejectionTest() {
+        Book book = Book.builder().isbn("123").build();
+        Book other = Book.builder().isbn("456").build();
+        when(target.save(book)).thenThrow(new DuplicateIsbnException());
+        when(target.save(other)).thenThrow(new BusinessException("Isbn already registered."));
+
+        Throwable exception = catchThrowable(() -> service.save(book));
+        catchThrowable(() -> service.save(other));
+
+        assertThat(exception).isInstanceOf(BusinessException.class);
+        assertThat(timer("save", "duplicate_isbn").count()).isEqualTo(1);
+        assertThat(timer("save", "rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Must publish latency histogram buckets for the service timers")
+    public void serviceHistogramTest() {
+        PrometheusMeterRegistry prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addInterface(BookService.class);
+        factory.addAspect(new OperationMetricsAspect(prometheus));
+        BookService timed = factory.getProxy();
+        when(target.getById(1L)).thenReturn(Optional.empty());
+
+        timed.getById(1L);
+
+        String bucket = "library_service_seconds_bucket{component=\"BookService\",method=\"getById\",outcome=\"not_found\",le=";
+        assertThat(prometheus.scrape().split("\n"))
+                .filteredOn(line -> line.startsWith(bucket))
+                .hasSizeGreaterThan(10)
+                .anyMatch(line -> line.startsWith(bucket + "\"+Inf\"") && line.endsWith(" 1.0"));
+    }
+
+    private Timer timer(String method, String outcome) {
+        return meterRegistry.get(OperationMetricsAspect.SERVICE_TIMER)
+                .tag("component", "BookService")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .timer();
+    }
+}
@@ -0,0 +1,84 @@
+package com.matheuscordeiro.libaryapi.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReadOnlyRoutingDataSourceTest {
+    EmbeddedDatabase primary;
+    EmbeddedDatabase replica;
+    MeterRegistry meterRegistry;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        meterRegistry = new SimpleMeterRegistry();
+        ReadOnlyRoutingDataSource routing = new ReadOnlyRoutingDataSource(primary, replica, meterRegistry);
+        routing.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+        dataSource.setTargetDataSource(routing);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        dataSource.afterPropertiesSet();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    @DisplayName("Must route read-only transactions to the replica and everything else to the primary")
+    public void routeTest() {
+        transactionTemplate.setReadOnly(true);
+        String readOnly = transactionTemplate.execute(status -> route());
+        transactionTemplate.setReadOnly(false);
+        String readWrite = transactionTemplate.execute(status -> route());
+        String withoutTransaction = route();
+
+        assertThat(readOnly).isEqualTo("replica");
+        assertThat(readWrite).isEqualTo("primary");
+        assertThat(withoutTransaction).isEqualTo("primary");
+        assertThat(connections("replica")).isEqualTo(1);
+        assertThat(connections("primary")).isEqualTo(2);
+    }
+
+    private String route() {
+        return jdbcTemplate.queryForObject("select name from route", String.class);
+    }
+
+    private double connections(String route) {
+        return meterRegistry.get("library.datasource.connections").tag("route", route).counter().count();
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("routing-" + name)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("create table route (name varchar(10))");
+        jdbcTemplate.update("insert into route (name) values (?)", name);
+        return database;
+    }
+}
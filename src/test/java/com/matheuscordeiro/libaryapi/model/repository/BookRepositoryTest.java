@@ -1,16 +1,23 @@
 package com.matheuscordeiro.libaryapi.model.repository;
 
 import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.Cursor;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.CursorPage;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -71,6 +78,114 @@ public class BookRepositoryTest {
         assertThat(deletedBook).isNull();
     }
 
+    @Test
+    @DisplayName("Must insert books in batches and return the existing isbns of a set")
+    public void persistAllTest() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 120; i++)
+            books.add(createNewBook("batch-" + i));
+        repository.persistAll(books);
+        assertThat(books).allMatch(book -> book.getId() != null);
+        assertThat(repository.count()).isEqualTo(120);
+        List<String> existing = repository.findExistingIsbns(Arrays.asList("batch-1", "batch-119", "missing"));
+        assertThat(existing).containsExactlyInAnyOrder("batch-1", "batch-119");
+    }
+
+    @Test
+    @DisplayName("Must walk every book exactly once with a title cursor")
+    public void keysetByTitleTest() {
+        for (int i = 0; i < 7; i++) {
+            Book book = createNewBook("isbn-" + i);
+            book.setTitle("Title " + (i % 3));
+            entityManager.persist(book);
+        }
+        Cursor cursor = Cursor.first(Sort.by(Sort.Direction.DESC, "title"));
+        List<String> visited = new ArrayList<>();
+        String token;
+        do {
+            List<Book> rows = repository.findAll(null, cursor, 3);
+            CursorPage<Book> page = CursorPage.of(rows, 2, cursor, null);
+            visited.addAll(page.getContent().stream().map(Book::getIsbn).collect(Collectors.toList()));
+            token = page.getNextCursor();
+            if (token != null)
+                cursor = Cursor.decode(token);
+        } while (token != null);
+        assertThat(visited).hasSize(7).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("Must walk every book exactly once with a title cursor when some titles are null")
+    public void keysetByNullableTitleTest() {
+        for (int i = 0; i < 7; i++) {
+            Book book = createNewBook("isbn-" + i);
+            book.setTitle(i % 3 == 0 ? null : "Title " + (i % 2));
+            entityManager.persist(book);
+        }
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            Cursor cursor = Cursor.first(Sort.by(direction, "title"));
+            List<Book> visited = new ArrayList<>();
+            String token;
+            do {
+                List<Book> rows = repository.findAll(null, cursor, 3);
+                CursorPage<Book> page = CursorPage.of(rows, 2, cursor, null);
+                visited.addAll(page.getContent());
+                token = page.getNextCursor();
+                if (token != null)
+                    cursor = Cursor.decode(token);
+            } while (token != null);
+            assertThat(visited).as("walking %s", direction).hasSize(7).doesNotHaveDuplicates();
+            List<String> titles = visited.stream().map(Book::getTitle).collect(Collectors.toList());
+            assertThat(direction.isAscending() ? titles.subList(0, 3) : titles.subList(4, 7))
+                    .as("nulls walking %s", direction)
+                    .containsOnlyNulls();
+        }
+    }
+
+    @Test
+    @DisplayName("Must hand a book to a single active loan at a time")
+    public void markLoanedAndReleaseTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        Long id = book.getId();
+
+        assertThat(repository.isAvailable(id)).isTrue();
+        assertThat(repository.markLoaned(id, 10L)).isEqualTo(1);
+        assertThat(repository.markLoaned(id, 11L)).isEqualTo(0);
+        assertThat(repository.isAvailable(id)).isFalse();
+        assertThat(repository.release(id, 11L)).isEqualTo(0);
+        assertThat(repository.release(id, 10L)).isEqualTo(1);
+        assertThat(repository.isAvailable(id)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Must keep the active loan when the book is saved from a detached copy")
+    public void saveKeepsActiveLoanTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        repository.markLoaned(book.getId(), 10L);
+
+        repository.saveAndFlush(Book.builder().id(book.getId()).title("Other").author("Other").isbn("123").build());
+        entityManager.clear();
+
+        assertThat(repository.findById(book.getId()).get().getActiveLoanId()).isEqualTo(10L);
+        assertThat(repository.findAll(BookSpecifications.available())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Must bump the book version on updates and the loans version on loan changes")
+    public void versionsTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        Long id = book.getId();
+
+        repository.markLoaned(id, 10L);
+        repository.touchLoans(id);
+        Book loaded = repository.findById(id).get();
+        loaded.setTitle("Other");
+        repository.saveAndFlush(loaded);
+
+        BookRepository.Versions versions = repository.findVersionsById(id).get();
+        assertThat(versions.getVersion()).isEqualTo(1L);
+        assertThat(versions.getLoansVersion()).isEqualTo(2L);
+    }
+
     public static Book createNewBook(String isbn) {
         return Book.builder().title("Future").author("Juniot").isbn(isbn).build();
     }
@@ -0,0 +1,71 @@
+package com.matheuscordeiro.libaryapi.model.repository;
+
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.entity.CustomerLoanStats;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static com.matheuscordeiro.libaryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class CustomerLoanStatsRepositoryTest {
+    @Autowired
+    CustomerLoanStatsRepository repository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("Must count the loans and returns of a customer")
+    public void recordLoanAndReturnTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        Loan first = entityManager.persist(Loan.builder().book(book).customer("Junior").loanDate(LocalDate.now()).build());
+        entityManager.persist(Loan.builder().book(book).customer("Junior").loanDate(LocalDate.now()).build());
+
+        repository.recordLoan("Junior");
+        repository.recordLoan("Junior");
+        repository.recordReturns(Collections.singletonList(first.getId()));
+
+        CustomerLoanStats stats = repository.findById("Junior").get();
+        assertThat(stats.getTimesBorrowed()).isEqualTo(2);
+        assertThat(stats.getOnLoan()).isEqualTo(1);
+        assertThat(stats.getLateCount()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Must count an overdue loan late once for its book and customer")
+    public void addLateTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        entityManager.persist(Loan.builder().book(book).customer("Junior").loanDate(LocalDate.now().minusDays(10)).build());
+        entityManager.persist(Loan.builder().book(book).customer("Junior").loanDate(LocalDate.now()).build());
+        repository.recordLoan("Junior");
+        LocalDate until = LocalDate.now().minusDays(4);
+
+        assertThat(loanRepository.markLate(until, 1L)).isEqualTo(1);
+        bookRepository.addLate(1L);
+        repository.addLate(1L);
+        assertThat(loanRepository.markLate(until, 2L)).isEqualTo(0);
+
+        assertThat(repository.findById("Junior").get().getLateCount()).isEqualTo(1);
+        assertThat(bookRepository.findLoanStatsById(book.getId()).get().getLateCount()).isEqualTo(1);
+    }
+}
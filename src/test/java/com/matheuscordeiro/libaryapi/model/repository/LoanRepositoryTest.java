@@ -2,6 +2,11 @@ package com.matheuscordeiro.libaryapi.model.repository;
 
 import com.matheuscordeiro.libaryapi.model.entity.Book;
 import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.Cursor;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.CursorPage;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,10 +15,15 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static com.matheuscordeiro.libaryapi.model.repository.BookRepositoryTest.createNewBook;
@@ -29,15 +39,6 @@ public class LoanRepositoryTest {
     @Autowired
     TestEntityManager entityManager;
 
-    @Test
-    @DisplayName("Must should check if the borrowed book has been returned")
-    public void existsByBookAndNotReturnedTest() {
-        Loan loan = createAndPersistLoan(LocalDate.now());
-        Book book = loan.getBook();
-        boolean exists = repository.existsByBookAndNotReturned(book);
-        assertThat(exists).isTrue();
-    }
-
     @Test
     @DisplayName("Must find by isbn of the book or customer")
     public void findByBookIsbnOrCustomerTest(){
@@ -50,6 +51,145 @@ public class LoanRepositoryTest {
         assertThat(result.getTotalElements()).isEqualTo(1);
     }
 
+    @Test
+    @DisplayName("Must find the loans of either filter when both are given")
+    public void findByBookIsbnOrCustomerMergesTest() {
+        Loan byIsbn = createAndPersistLoan(LocalDate.now());
+        Book book = createNewBook("321");
+        entityManager.persist(book);
+        Loan byCustomer = entityManager.persist(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        entityManager.persist(Loan.builder().book(book).customer("Ciclano").loanDate(LocalDate.now()).build());
+        Page<Loan> result = repository.findByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(0, 10));
+        assertThat(result.getContent()).containsExactlyInAnyOrder(byIsbn, byCustomer);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Must page and sort the loans of either filter and count them once")
+    public void findByBookIsbnOrCustomerPagesTest() {
+        Loan both = createAndPersistLoan(LocalDate.now().minusDays(3));
+        Book book = createNewBook("321");
+        entityManager.persist(book);
+        Loan byCustomer = entityManager.persist(Loan.builder().book(book).customer("Junior").loanDate(LocalDate.now().minusDays(2)).build());
+        Loan byIsbn = entityManager.persist(Loan.builder().book(both.getBook()).customer("Fulano").loanDate(LocalDate.now().minusDays(1)).build());
+        entityManager.persist(Loan.builder().book(book).customer("Ciclano").loanDate(LocalDate.now()).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        Page<Loan> first = repository.findByBookIsbnOrCustomer("123", "Junior", PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "loanDate")));
+        Page<Loan> second = repository.findByBookIsbnOrCustomer("123", "Junior", PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "loanDate")));
+
+        assertThat(first.getContent()).extracting(Loan::getId).containsExactly(byIsbn.getId(), byCustomer.getId());
+        assertThat(first.getContent()).allMatch(loan -> Hibernate.isInitialized(loan.getBook()));
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(second.getContent()).extracting(Loan::getId).containsExactly(both.getId());
+
+        Slice<Loan> firstSlice = repository.findSliceByBookIsbnOrCustomer("123", "Junior", PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "loanDate")));
+        Slice<Loan> secondSlice = repository.findSliceByBookIsbnOrCustomer("123", "Junior", PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "loanDate")));
+
+        assertThat(firstSlice.getContent()).extracting(Loan::getId).containsExactly(byIsbn.getId(), byCustomer.getId());
+        assertThat(firstSlice.hasNext()).isTrue();
+        assertThat(secondSlice.getContent()).extracting(Loan::getId).containsExactly(both.getId());
+        assertThat(secondSlice.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Must walk the loans of the isbn or customer filter exactly once with a loan date cursor")
+    public void findByBookIsbnOrCustomerCursorTest() {
+        Loan both = createAndPersistLoan(LocalDate.now().minusDays(3));
+        Book book = createNewBook("321");
+        entityManager.persist(book);
+        List<Long> matching = new ArrayList<>(Collections.singletonList(both.getId()));
+        for (int i = 0; i < 5; i++) {
+            LocalDate loanDate = i % 2 == 0 ? null : LocalDate.now().minusDays(i % 3);
+            matching.add(entityManager.persist(Loan.builder().book(both.getBook()).customer("Fulano").loanDate(loanDate).build()).getId());
+            matching.add(entityManager.persist(Loan.builder().book(book).customer("Junior").loanDate(loanDate).build()).getId());
+        }
+        entityManager.persist(Loan.builder().book(book).customer("Ciclano").loanDate(LocalDate.now()).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            Cursor cursor = Cursor.first(Sort.by(direction, "loanDate"));
+            List<Long> visited = new ArrayList<>();
+            String token;
+            do {
+                List<Loan> rows = repository.findByBookIsbnOrCustomer("123", "Junior", cursor, 4);
+                CursorPage<Loan> page = CursorPage.of(rows, 3, cursor, null);
+                page.getContent().forEach(loan -> visited.add(loan.getId()));
+                token = page.getNextCursor();
+                if (token != null)
+                    cursor = Cursor.decode(token);
+            } while (token != null);
+            assertThat(visited).as("walking %s", direction).hasSameSizeAs(matching).containsExactlyInAnyOrderElementsOf(matching);
+        }
+        assertThat(repository.countByBookIsbnOrCustomer("123", "Junior")).isEqualTo(matching.size());
+    }
+
+    @Test
+    @DisplayName("Must read each side of the isbn or customer filter through an index")
+    public void findByBookIsbnOrCustomerPlanTest() {
+        String plan = (String) entityManager.getEntityManager()
+                .createNativeQuery("explain select l.id from loan l where " + LoanFilterSql.ISBN_OR_CUSTOMER)
+                .setParameter("isbn", "123")
+                .setParameter("customer", "Junior")
+                .getSingleResult();
+        assertThat(plan.toLowerCase())
+                .doesNotContain("tablescan")
+                .contains("idx_loan_customer")
+                .contains("ux_book_isbn");
+    }
+
+    @Test
+    @DisplayName("Must find the loans of a book by its isbn")
+    public void findByBookIsbnTest() {
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        Page<Loan> result = repository.findByBookIsbn("123", PageRequest.of(0, 10));
+        assertThat(result.getContent()).containsExactly(loan);
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(repository.findByBookIsbn("999", PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Must load the loans of a page together with their books in a single statement")
+    public void findByCustomerFetchesBooksTest() {
+        for (int i = 0; i < 5; i++) {
+            Book book = createNewBook("isbn-" + i);
+            entityManager.persist(book);
+            entityManager.persist(Loan.builder().book(book).customer("Junior").loanDate(LocalDate.now()).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        List<Loan> result = repository.findByCustomer("Junior", PageRequest.of(0, 10)).getContent();
+        assertThat(result).hasSize(5);
+        assertThat(result).allMatch(loan -> loan.getBook().getIsbn().startsWith("isbn-"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    @DisplayName("Must stream every loan with its book and detach it afterwards")
+    public void forEachInOrderTest() {
+        Loan first = createAndPersistLoan(LocalDate.now());
+        Book book = createNewBook("321");
+        entityManager.persist(book);
+        Loan second = entityManager.persist(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        entityManager.flush();
+        List<Long> visited = new ArrayList<>();
+        repository.forEachInOrder(loan -> {
+            assertThat(loan.getBook()).isNotNull();
+            visited.add(loan.getId());
+        });
+        assertThat(visited).containsExactly(first.getId(), second.getId());
+        assertThat(entityManager.getEntityManager().contains(first)).isFalse();
+    }
+
     @Test
     @DisplayName("Must obtain loans whose loan date is less than or equal to three days ago and not returned")
     public void findByLoanDateLessThanAndNotReturned() {
@@ -66,6 +206,54 @@ public class LoanRepositoryTest {
         assertThat(result).isEmpty();
     }
 
+    @Test
+    @DisplayName("Must read late loans in id chunks after the last seen id")
+    public void findLateLoansAfterTest() {
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+        List<Loan> late = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            late.add(entityManager.persist(Loan.builder().book(book).customer("Junior").costumerEmail("junior@email.com")
+                    .loanDate(LocalDate.now().minusDays(5)).build()));
+        entityManager.persist(Loan.builder().book(book).customer("Junior").loanDate(LocalDate.now().minusDays(5)).returned(true).build());
+        entityManager.persist(Loan.builder().book(book).customer("Junior").loanDate(LocalDate.now()).build());
+        LocalDate loanedUntil = LocalDate.now().minusDays(4);
+
+        List<LoanRepository.LateLoan> first = repository.findLateLoansAfter(loanedUntil, 0L, PageRequest.of(0, 2));
+        List<LoanRepository.LateLoan> second = repository.findLateLoansAfter(loanedUntil, first.get(1).getId(), PageRequest.of(0, 2));
+
+        assertThat(first).extracting(LoanRepository.LateLoan::getId).containsExactly(late.get(0).getId(), late.get(1).getId());
+        assertThat(first).extracting(LoanRepository.LateLoan::getCostumerEmail).containsOnly("junior@email.com");
+        assertThat(second).extracting(LoanRepository.LateLoan::getId).containsExactly(late.get(2).getId());
+    }
+
+    @Test
+    @DisplayName("Must mark only the open loans returned in a single update")
+    public void markReturnedTest() {
+        Loan open = createAndPersistLoan(LocalDate.now());
+        Loan returned = entityManager.persist(Loan.builder().book(open.getBook()).customer("Junior")
+                .loanDate(LocalDate.now()).returned(true).build());
+        List<Long> ids = Arrays.asList(open.getId(), returned.getId(), -1L);
+
+        List<LoanRepository.LoanState> states = repository.findStatesForUpdate(ids);
+        int updated = repository.markReturned(ids);
+
+        assertThat(states).extracting(LoanRepository.LoanState::getId).containsExactlyInAnyOrder(open.getId(), returned.getId());
+        assertThat(states).extracting(LoanRepository.LoanState::getBookId).containsOnly(open.getBook().getId());
+        assertThat(updated).isEqualTo(1);
+        assertThat(repository.findById(open.getId()).get().getReturned()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Must hand out a new late mark on every call")
+    public void nextLateMarkTest() {
+        long first = repository.nextLateMark();
+        long second = repository.nextLateMark();
+
+        assertThat(first).isPositive();
+        assertThat(second).isGreaterThan(first);
+    }
+
     public Loan createAndPersistLoan(LocalDate loanDate) {
         Book book = createNewBook("123");
         entityManager.persist(book);
@@ -0,0 +1,78 @@
+package com.matheuscordeiro.libaryapi.model.repository.keyset;
+
+import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class CursorTest {
+
+    @Test
+    @DisplayName("Must start from the first sort order, or by id when unsorted")
+    public void firstCursorTest() {
+        Cursor byTitle = Cursor.of("", Sort.by(Sort.Direction.DESC, "title"));
+        assertThat(byTitle.isFirst()).isTrue();
+        assertThat(byTitle.getProperty()).isEqualTo("title");
+        assertThat(byTitle.isAscending()).isFalse();
+        Cursor unsorted = Cursor.of(null, Sort.unsorted());
+        assertThat(unsorted.isById()).isTrue();
+        assertThat(unsorted.sort()).isEqualTo(Sort.by("id"));
+    }
+
+    @Test
+    @DisplayName("Must encode the last row of a page into a token that decodes back")
+    public void nextCursorTest() {
+        Book last = Book.builder().id(10L).title("Future: the sequel").build();
+        String token = Cursor.first(Sort.by("title")).next(last).encode();
+        Cursor decoded = Cursor.decode(token);
+        assertThat(decoded.getProperty()).isEqualTo("title");
+        assertThat(decoded.getLastId()).isEqualTo(10L);
+        assertThat(decoded.getLastValue()).isEqualTo("Future: the sequel");
+        assertThat(decoded.sort()).isEqualTo(Sort.by("title").and(Sort.by("id")));
+    }
+
+    @Test
+    @DisplayName("Must encode a null sort value apart from the text null")
+    public void nullValueCursorTest() {
+        Cursor afterNull = Cursor.decode(Cursor.first(Sort.by("title")).next(Book.builder().id(10L).build()).encode());
+        Cursor afterText = Cursor.decode(Cursor.first(Sort.by("title")).next(Book.builder().id(11L).title("null").build()).encode());
+        assertThat(afterNull.getLastValue()).isNull();
+        assertThat(afterNull.getLastId()).isEqualTo(10L);
+        assertThat(afterText.getLastValue()).isEqualTo("null");
+    }
+
+    @Test
+    @DisplayName("Must reject tampered tokens and unsupported sort properties")
+    public void invalidCursorTest() {
+        assertThat(catchThrowable(() -> Cursor.decode("not a cursor")))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Invalid cursor.");
+        Cursor byLoans = Cursor.first(Sort.by("loans"));
+        assertThat(catchThrowable(() -> byLoans.checkProperty(new HashSet<>(Collections.singletonList("id")))))
+                .isInstanceOf(BusinessException.class);
+        Cursor byId = Cursor.first(Sort.unsorted());
+        byId.checkProperty(new HashSet<>(Arrays.asList("id", "title")));
+    }
+
+    @Test
+    @DisplayName("Must only hand out a next cursor when more rows exist")
+    public void cursorPageTest() {
+        Cursor cursor = Cursor.first(Sort.unsorted());
+        Book first = Book.builder().id(1L).build();
+        Book second = Book.builder().id(2L).build();
+        CursorPage<Book> last = CursorPage.of(Arrays.asList(first, second), 2, cursor, 2L);
+        assertThat(last.getNextCursor()).isNull();
+        assertThat(last.getTotal()).isEqualTo(2L);
+        CursorPage<Book> partial = CursorPage.of(Arrays.asList(first, second), 1, cursor, null);
+        assertThat(partial.getContent()).containsExactly(first);
+        assertThat(Cursor.decode(partial.getNextCursor()).getLastId()).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,161 @@
+package com.matheuscordeiro.libaryapi.service;
+
+import com.matheuscordeiro.libaryapi.config.CacheConfig;
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import com.matheuscordeiro.libaryapi.service.impl.BookServiceImpl;
+import com.matheuscordeiro.libaryapi.service.index.BookSearchIndex;
+import com.matheuscordeiro.libaryapi.service.index.IsbnIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@ContextConfiguration(classes = BookServiceCacheTest.Config.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class BookServiceCacheTest {
+
+    @Configuration
+    @EnableTransactionManagement
+    @Import({CacheConfig.class, BookServiceImpl.class, IsbnIndex.class, BookSearchIndex.class})
+    static class Config {
+        @Bean
+        public CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfig.BOOKS, CacheConfig.BOOKS_BY_ISBN);
+        }
+
+        @Bean
+        public PlatformTransactionManager transactionManager() {
+            return new AbstractPlatformTransactionManager() {
+                @Override
+                protected Object doGetTransaction() {
+                    return new Object();
+                }
+
+                @Override
+                protected void doBegin(Object transaction, TransactionDefinition definition) {
+                }
+
+                @Override
+                protected void doCommit(DefaultTransactionStatus status) {
+                }
+
+                @Override
+                protected void doRollback(DefaultTransactionStatus status) {
+                }
+            };
+        }
+    }
+
+    @Autowired
+    BookService service;
+
+    @MockBean
+    BookRepository repository;
+
+    @Test
+    @DisplayName("Must read a book by id from the cache after the first lookup")
+    public void getByIdCachedTest() {
+        Book book = Book.builder().id(1L).isbn("123").build();
+        when(repository.findById(1L)).thenReturn(Optional.of(book));
+        service.getById(1L);
+        Optional<Book> cached = service.getById(1L);
+        assertThat(cached).contains(book);
+        verify(repository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Must not cache a missing book")
+    public void getByIdMissingNotCachedTest() {
+        when(repository.findById(1L)).thenReturn(Optional.empty());
+        service.getById(1L);
+        service.getById(1L);
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Must evict cached lookups when a book is updated")
+    public void updateEvictsTest() {
+        Book book = Book.builder().id(1L).isbn("123").build();
+        when(repository.findById(1L)).thenReturn(Optional.of(book));
+        when(repository.findByIsbn("123")).thenReturn(Optional.of(book));
+        when(repository.save(book)).thenReturn(book);
+        service.getById(1L);
+        service.getBookByIsbn("123");
+        service.update(book);
+        service.getById(1L);
+        service.getBookByIsbn("123");
+        verify(repository, times(2)).findById(1L);
+        verify(repository, times(2)).findByIsbn("123");
+    }
+
+    @Test
+    @DisplayName("Must evict cached lookups when an update of a book fails")
+    public void failedUpdateEvictsTest() {
+        Book book = Book.builder().id(1L).isbn("123").build();
+        when(repository.findById(1L)).thenReturn(Optional.of(book));
+        when(repository.save(any(Book.class))).thenThrow(new OptimisticLockingFailureException("changed"));
+        service.getById(1L);
+        catchThrowable(() -> service.update(book.toBuilder().title("Unsaved").build()));
+        service.getById(1L);
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Must evict cached lookups when a book is deleted")
+    public void deleteEvictsTest() {
+        Book book = Book.builder().id(1L).isbn("123").build();
+        when(repository.findById(1L)).thenReturn(Optional.of(book));
+        service.getById(1L);
+        service.delete(book);
+        service.getById(1L);
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Must fill the cache and check versions from the primary, not from a lagging replica")
+    public void laggingReplicaTest() {
+        Book stale = Book.builder().id(1L).isbn("123").version(1L).build();
+        Book current = stale.toBuilder().version(2L).build();
+        BookRepository.Versions versions = mock(BookRepository.Versions.class);
+        when(versions.getVersion()).thenReturn(2L);
+        when(repository.findById(1L)).thenAnswer(invocation -> Optional.of(replicaLags() ? stale : current));
+        when(repository.findByIsbn("123")).thenAnswer(invocation -> Optional.of(replicaLags() ? stale : current));
+        when(repository.findVersionsById(1L)).thenAnswer(invocation -> replicaLags() ? Optional.empty() : Optional.of(versions));
+        when(repository.save(current)).thenReturn(current);
+        service.update(current);
+        assertThat(service.getById(1L).map(Book::getVersion)).contains(2L);
+        assertThat(service.getById(1L).map(Book::getVersion)).contains(2L);
+        assertThat(service.getBookByIsbn("123").map(Book::getVersion)).contains(2L);
+        assertThat(service.getVersions(1L).map(BookRepository.Versions::getVersion)).contains(2L);
+    }
+
+    private static boolean replicaLags() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
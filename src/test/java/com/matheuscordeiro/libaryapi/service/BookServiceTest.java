@@ -1,9 +1,12 @@
 package com.matheuscordeiro.libaryapi.service;
 
+import com.matheuscordeiro.libaryapi.api.dto.BookImportResultDTO;
 import com.matheuscordeiro.libaryapi.exception.BusinessException;
 import com.matheuscordeiro.libaryapi.model.entity.Book;
 import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
 import com.matheuscordeiro.libaryapi.service.impl.BookServiceImpl;
+import com.matheuscordeiro.libaryapi.service.index.BookSearchIndex;
+import com.matheuscordeiro.libaryapi.service.index.IsbnIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,16 +14,22 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.InstanceOfAssertFactories.OPTIONAL;
@@ -34,9 +43,14 @@ public class BookServiceTest {
     @MockBean
     BookRepository repository;
 
+    IsbnIndex isbnIndex;
+    BookSearchIndex searchIndex;
+
     @BeforeEach
     public void setUp() {
-        this.service = new BookServiceImpl(repository);
+        this.isbnIndex = new IsbnIndex(repository, 1000, 0.01);
+        this.searchIndex = new BookSearchIndex(repository, 1000);
+        this.service = new BookServiceImpl(repository, isbnIndex, searchIndex);
     }
 
     @Test
@@ -72,6 +86,55 @@ public class BookServiceTest {
         Mockito.verify(repository, Mockito.never()).save(book);
     }
 
+    @Test
+    @DisplayName("Must throw a business error when the unique isbn index rejects a concurrent duplicate")
+    public void saveBookUniqueIsbnViolationTest() {
+        Book book = createValidBook();
+        when(repository.existsByIsbn(Mockito.anyString())).thenReturn(false);
+        when(repository.save(book)).thenThrow(new DataIntegrityViolationException("ux_book_isbn"));
+        Throwable exception = Assertions.catchThrowable(() -> service.save(book));
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Isbn already registered.");
+    }
+
+    @Test
+    @DisplayName("Must skip the duplicate isbn query when the isbn index rules it out")
+    public void saveBookWithoutDuplicateQueryTest() {
+        Book book = createValidBook();
+        when(repository.streamAllIsbns()).thenReturn(Stream.of("002", "003"));
+        isbnIndex.rebuild();
+        when(repository.save(book)).thenReturn(Book.builder().id(1L).isbn("001").build());
+        Book savedBook = service.save(book);
+        assertThat(savedBook.getId()).isEqualTo(1L);
+        assertThat(isbnIndex.mightContain("001")).isTrue();
+        verify(repository, never()).existsByIsbn(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Must import new books and report duplicates and invalid entries")
+    @SuppressWarnings("unchecked")
+    public void importBooksTest() {
+        Book created = createValidBook();
+        Book registered = Book.builder().title("Old").author("Junior").isbn("002").build();
+        Book repeated = Book.builder().title("Again").author("Junior").isbn("001").build();
+        Book invalid = Book.builder().isbn("003").build();
+        when(repository.findExistingIsbns(Mockito.anyCollection())).thenReturn(Arrays.asList("002"));
+        doAnswer(invocation -> {
+            ((List<Book>) invocation.getArgument(0)).forEach(book -> book.setId(10L));
+            return null;
+        }).when(repository).persistAll(Mockito.anyList());
+        List<BookImportResultDTO> results = service.importBooks(Arrays.asList(created, registered, repeated, invalid));
+        assertThat(results).extracting(BookImportResultDTO::getStatus).containsExactly(
+                BookImportResultDTO.Status.CREATED,
+                BookImportResultDTO.Status.DUPLICATE,
+                BookImportResultDTO.Status.DUPLICATE,
+                BookImportResultDTO.Status.INVALID);
+        assertThat(results.get(0).getId()).isEqualTo(10L);
+        verify(repository).persistAll(Arrays.asList(created));
+        verify(repository, never()).existsByIsbn(Mockito.anyString());
+    }
+
     @Test
     @DisplayName("Must get a book by id")
     public void getByIdTest() {
@@ -149,6 +212,43 @@ public class BookServiceTest {
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Must filter the books without counting them unless the total is asked for")
+    @SuppressWarnings("unchecked")
+    public void findBookWithoutTotalTest() {
+        Book book = createValidBook();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Slice<Book> slice = new SliceImpl<>(Arrays.asList(book), pageRequest, true);
+        when(repository.findSlice(Mockito.any(Specification.class), Mockito.eq(pageRequest))).thenReturn(slice);
+
+        Slice<Book> result = service.find(book, false, pageRequest, false);
+
+        assertThat(result).isSameAs(slice);
+        verify(repository, never()).findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class));
+        verify(repository, never()).count(Mockito.any(Specification.class));
+    }
+
+    @Test
+    @DisplayName("Must answer a title search without a match from the search index")
+    @SuppressWarnings("unchecked")
+    public void findBookThroughSearchIndexTest() {
+        doAnswer(invocation -> {
+            Book book = createValidBook();
+            book.setId(1L);
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(book);
+            return null;
+        }).when(repository).forEachInOrder(Mockito.any(Consumer.class));
+        searchIndex.rebuild();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+
+        Page<Book> result = service.find(Book.builder().title("missing").build(), pageRequest);
+
+        assertThat(result.getTotalElements()).isEqualTo(0);
+        verify(repository, never()).findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class));
+        verify(repository, never()).findAll(Mockito.any(Specification.class), Mockito.any(PageRequest.class));
+    }
+
     @Test
     @DisplayName("Must get a book through isbn")
     public void getBookByIsbnTest(){
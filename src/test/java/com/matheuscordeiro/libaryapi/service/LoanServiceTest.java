@@ -1,28 +1,52 @@
 package com.matheuscordeiro.libaryapi.service;
 
 import com.matheuscordeiro.libaryapi.api.dto.LoanFilterDTO;
+import com.matheuscordeiro.libaryapi.api.dto.LoanReturnResultDTO;
 import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.exception.LoanAlreadyReturnedException;
 import com.matheuscordeiro.libaryapi.model.entity.Book;
 import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import com.matheuscordeiro.libaryapi.model.repository.CustomerLoanStatsRepository;
 import com.matheuscordeiro.libaryapi.model.repository.LoanRepository;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.Cursor;
+import com.matheuscordeiro.libaryapi.model.repository.keyset.CursorPage;
 import com.matheuscordeiro.libaryapi.service.impl.LoanServiceImpl;
+import com.matheuscordeiro.libaryapi.service.metrics.ActiveLoanCounter;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -32,13 +56,24 @@ import static org.mockito.Mockito.*;
 @ActiveProfiles("test")
 public class LoanServiceTest {
     LoanService service;
+    ActiveLoanCounter activeLoans;
 
     @MockBean
     LoanRepository repository;
 
+    @MockBean
+    BookRepository bookRepository;
+
+    @MockBean
+    CustomerLoanStatsRepository customerStatsRepository;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
     @BeforeEach
     public void setUp() {
-        this.service = new LoanServiceImpl(repository);
+        this.activeLoans = new ActiveLoanCounter(bookRepository);
+        this.service = new LoanServiceImpl(repository, bookRepository, customerStatsRepository, transactionManager, activeLoans, 64);
     }
 
     @Test
@@ -57,9 +92,12 @@ public class LoanServiceTest {
                 .customer(customer)
                 .loanDate(LocalDate.now())
                 .build();
-        when(repository.existsByBookAndNotReturned(book)).thenReturn(false);
+        when(bookRepository.isAvailable(1L)).thenReturn(true);
         when(repository.save(savingLoan)).thenReturn(savedLoan);
+        when(bookRepository.markLoaned(1L, 1L)).thenReturn(1);
         Loan loan = service.save(savingLoan);
+        verify(bookRepository).markLoaned(1L, 1L);
+        assertThat(activeLoans.get()).isEqualTo(1);
         assertThat(loan.getId()).isEqualTo(savedLoan.getId());
         assertThat(loan.getBook()).isEqualTo(savedLoan.getBook().getId());
         assertThat(loan.getCustomer()).isEqualTo(savedLoan.getCustomer());
@@ -76,7 +114,7 @@ public class LoanServiceTest {
                 .customer(customer)
                 .loanDate(LocalDate.now())
                 .build();
-        when(repository.existsByBookAndNotReturned(book)).thenReturn(true);
+        when(bookRepository.isAvailable(1L)).thenReturn(false);
         Throwable exception = catchThrowable(() -> service.save(savingLoan));
         assertThat(exception)
                 .isInstanceOf(BusinessException.class)
@@ -84,6 +122,21 @@ public class LoanServiceTest {
         verify(repository, never()).save(savingLoan);
     }
 
+    @Test
+    @DisplayName("Must throw a business error when another loan takes the book between the check and the insert")
+    public void lostRaceSaveTest() {
+        Loan savingLoan = createLoan();
+        Loan savedLoan = createLoan();
+        savedLoan.setId(2L);
+        when(bookRepository.isAvailable(1L)).thenReturn(true);
+        when(repository.save(savingLoan)).thenReturn(savedLoan);
+        when(bookRepository.markLoaned(1L, 2L)).thenReturn(0);
+        Throwable exception = catchThrowable(() -> service.save(savingLoan));
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Book already loaned");
+    }
+
     @Test
     @DisplayName("Must get information on a loan by id")
     public void getLoanDetailsTest() {
@@ -106,9 +159,12 @@ public class LoanServiceTest {
         Loan loan = createLoan();
         loan.setId(1L);
         loan.setReturned(true);
+        when(repository.markReturned(Collections.singletonList(1L))).thenReturn(1);
         when(repository.save(loan)).thenReturn(loan);
         Loan updatedLoan = service.update(loan);
         assertThat(updatedLoan.getReturned()).isTrue();
+        verify(bookRepository).release(1L, 1L);
+        verify(customerStatsRepository).recordReturns(Collections.singletonList(1L));
         verify(repository.save(loan));
     }
 
@@ -133,6 +189,58 @@ public class LoanServiceTest {
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Must filter the loans without counting them unless the total is asked for")
+    public void findLoanWithoutTotalTest() {
+        LoanFilterDTO loanFilterDTO = LoanFilterDTO.builder().customer("Fulano").isbn("321").build();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Slice<Loan> slice = new SliceImpl<Loan>(Arrays.asList(createLoan()), pageRequest, false);
+        when(repository.findSliceByBookIsbnOrCustomer("321", "Fulano", pageRequest)).thenReturn(slice);
+        Slice<Loan> result = service.find(loanFilterDTO, pageRequest, false);
+        assertThat(result).isSameAs(slice);
+        verify(repository, never()).findByBookIsbnOrCustomer(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Must walk a cursor of the isbn or customer filter through the union of its indexed sides")
+    @SuppressWarnings("unchecked")
+    public void findLoanByCursorTest() {
+        LoanFilterDTO loanFilterDTO = LoanFilterDTO.builder().customer("Fulano").isbn("321").build();
+        Cursor cursor = Cursor.first(Sort.by("loanDate"));
+        List<Loan> rows = Arrays.asList(createLoan());
+        when(repository.findByBookIsbnOrCustomer("321", "Fulano", cursor, 11)).thenReturn(rows);
+        when(repository.countByBookIsbnOrCustomer("321", "Fulano")).thenReturn(1L);
+
+        CursorPage<Loan> result = service.find(loanFilterDTO, cursor, 10, true);
+
+        assertThat(result.getContent()).isEqualTo(rows);
+        assertThat(result.getTotal()).isEqualTo(1L);
+        verify(repository, never()).findAll(Mockito.any(Specification.class), Mockito.any(Cursor.class), Mockito.anyInt());
+        verify(repository, never()).count(Mockito.any(Specification.class));
+    }
+
+    @Test
+    @DisplayName("Must filter the loans by isbn only when no customer is given")
+    public void findLoanByIsbnTest() {
+        LoanFilterDTO loanFilterDTO = LoanFilterDTO.builder().isbn("321").customer(" ").build();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Page<Loan> page = new PageImpl<Loan>(Arrays.asList(createLoan()), pageRequest, 1);
+        when(repository.findByBookIsbn("321", pageRequest)).thenReturn(page);
+        Page<Loan> result = service.find(loanFilterDTO, pageRequest);
+        assertThat(result).isSameAs(page);
+        verify(repository, never()).findByBookIsbnOrCustomer(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Must list every loan when no filter is given")
+    public void findLoanWithoutFilterTest() {
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Page<Loan> page = new PageImpl<Loan>(Arrays.asList(createLoan()), pageRequest, 1);
+        when(repository.findAll(pageRequest)).thenReturn(page);
+        Page<Loan> result = service.find(new LoanFilterDTO(), pageRequest);
+        assertThat(result).isSameAs(page);
+    }
+
     public static Loan createLoan() {
         Book book = Book.builder().id(1L).build();
         String customer = "Junior";
@@ -142,4 +250,203 @@ public class LoanServiceTest {
                 .loanDate(LocalDate.now())
                 .build();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Must walk the late loans chunk by chunk from the last id of the previous chunk")
+    public void forEachLateLoanChunkTest() {
+        List<LoanRepository.LateLoan> first = Arrays.asList(lateLoan(1L), lateLoan(2L));
+        List<LoanRepository.LateLoan> second = Arrays.asList(lateLoan(5L));
+        when(repository.findLateLoansAfter(Mockito.any(LocalDate.class), Mockito.eq(0L), Mockito.any(PageRequest.class))).thenReturn(first);
+        when(repository.findLateLoansAfter(Mockito.any(LocalDate.class), Mockito.eq(2L), Mockito.any(PageRequest.class))).thenReturn(second);
+        List<List<LoanRepository.LateLoan>> chunks = new ArrayList<>();
+
+        service.forEachLateLoanChunk(2, chunks::add);
+
+        assertThat(chunks).containsExactly(first, second);
+        verify(repository, times(2)).findLateLoansAfter(Mockito.any(LocalDate.class), Mockito.anyLong(), Mockito.any(PageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Must let only one of many concurrent checkouts of the same book through")
+    public void concurrentSaveTest() throws Exception {
+        Set<Long> loanedBooks = ConcurrentHashMap.newKeySet();
+        AtomicInteger saved = new AtomicInteger();
+        when(bookRepository.isAvailable(Mockito.anyLong()))
+                .thenAnswer(invocation -> !loanedBooks.contains(invocation.<Long>getArgument(0)));
+        when(repository.save(Mockito.any(Loan.class))).thenAnswer(invocation -> {
+            Thread.sleep(1);
+            saved.incrementAndGet();
+            return invocation.getArgument(0);
+        });
+        when(bookRepository.markLoaned(Mockito.anyLong(), Mockito.any()))
+                .thenAnswer(invocation -> loanedBooks.add(invocation.<Long>getArgument(0)) ? 1 : 0);
+        int books = 10;
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> checkouts = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            for (long bookId = 0; bookId < books; bookId++) {
+                Loan loan = Loan.builder().book(Book.builder().id(bookId).build()).customer("Junior").loanDate(LocalDate.now()).build();
+                checkouts.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        service.save(loan);
+                    } catch (BusinessException ignored) {
+                    }
+                    return null;
+                }));
+            }
+        }
+        start.countDown();
+        for (Future<?> checkout : checkouts)
+            checkout.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertThat(saved.get()).isEqualTo(books);
+        assertThat(loanedBooks).hasSize(books);
+    }
+
+    @Test
+    @DisplayName("Must keep a second checkout of the book waiting until the first one has committed")
+    public void lockHeldUntilCommitTest() throws Exception {
+        Loan first = createLoan();
+        Loan second = createLoan();
+        when(bookRepository.isAvailable(1L)).thenReturn(true);
+        when(repository.save(Mockito.any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookRepository.markLoaned(Mockito.anyLong(), Mockito.any())).thenReturn(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean firstCommit = new AtomicBoolean(true);
+        AtomicInteger checksDuringCommit = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (firstCommit.compareAndSet(true, false)) {
+                executor.submit(() -> service.save(second));
+                Thread.sleep(200);
+                checksDuringCommit.set(mockingDetails(bookRepository).getInvocations().stream()
+                        .filter(call -> call.getMethod().getName().equals("isAvailable"))
+                        .mapToInt(call -> 1).sum());
+            }
+            return null;
+        }).when(transactionManager).commit(Mockito.any());
+
+        service.save(first);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertThat(checksDuringCommit.get()).isEqualTo(1);
+        verify(bookRepository, times(2)).isAvailable(1L);
+    }
+
+    @Test
+    @DisplayName("Must return the open loans with set based updates and report the others")
+    public void returnLoansTest() {
+        when(repository.findStatesForUpdate(Arrays.asList(1L, 2L, 3L)))
+                .thenReturn(Arrays.asList(loanState(1L, null, 10L), loanState(2L, true, 20L)));
+
+        List<LoanReturnResultDTO> results = service.returnLoans(Arrays.asList(1L, 2L, 3L, 1L));
+
+        assertThat(results).extracting(LoanReturnResultDTO::getId).containsExactly(1L, 2L, 3L);
+        assertThat(results).extracting(LoanReturnResultDTO::getStatus).containsExactly(
+                LoanReturnResultDTO.Status.RETURNED,
+                LoanReturnResultDTO.Status.ALREADY_RETURNED,
+                LoanReturnResultDTO.Status.NOT_FOUND);
+        verify(repository).markReturned(Collections.singletonList(1L));
+        verify(bookRepository).releaseAll(Collections.singletonList(1L));
+        verify(bookRepository).touchLoansAll(Collections.singletonList(10L));
+        verify(customerStatsRepository).recordReturns(Collections.singletonList(1L));
+        verify(repository, never()).save(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Must not move the counters when a returned loan is saved as returned again")
+    public void updateReturnedLoanTest() {
+        Loan loan = createLoan();
+        loan.setId(1L);
+        loan.setReturned(true);
+        when(repository.markReturned(Collections.singletonList(1L))).thenReturn(0);
+        when(repository.save(loan)).thenReturn(loan);
+
+        service.update(loan);
+
+        verify(bookRepository, never()).release(Mockito.anyLong(), Mockito.anyLong());
+        verify(customerStatsRepository, never()).recordReturns(Mockito.any());
+        verify(bookRepository).touchLoans(1L);
+    }
+
+    @Test
+    @DisplayName("Must reject reopening a returned loan, so the book's next loan is its only open one")
+    public void reopenReturnedLoanTest() {
+        AtomicInteger ids = new AtomicInteger();
+        when(bookRepository.isAvailable(1L)).thenReturn(true);
+        when(repository.save(Mockito.any(Loan.class))).thenAnswer(invocation -> {
+            Loan saving = invocation.getArgument(0);
+            if (saving.getId() == null)
+                saving.setId((long) ids.incrementAndGet());
+            return saving;
+        });
+        when(bookRepository.markLoaned(Mockito.eq(1L), Mockito.anyLong())).thenReturn(1);
+        when(repository.markReturned(Collections.singletonList(1L))).thenReturn(1);
+        when(bookRepository.release(1L, 1L)).thenReturn(1);
+        when(repository.findStatesForUpdate(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(loanState(1L, true, 1L)));
+
+        Loan first = service.save(createLoan());
+        first.setReturned(true);
+        service.update(first);
+        first.setReturned(false);
+        Throwable exception = catchThrowable(() -> service.update(first));
+        Loan second = service.save(createLoan());
+
+        assertThat(exception).isInstanceOf(LoanAlreadyReturnedException.class);
+        assertThat(second.getId()).isEqualTo(2L);
+        assertThat(activeLoans.get()).isEqualTo(1);
+        verify(repository, times(2)).save(first);
+    }
+
+    @Test
+    @DisplayName("Must add the newly late loans to the book and customer counters under one mark")
+    public void recordLateLoansTest() {
+        when(repository.nextLateMark()).thenReturn(5L);
+        when(repository.markLate(Mockito.eq(LocalDate.now().minusDays(LoanService.LOAN_DAYS)), Mockito.anyLong())).thenReturn(3);
+
+        int marked = service.recordLateLoans();
+
+        assertThat(marked).isEqualTo(3);
+        ArgumentCaptor<Long> mark = ArgumentCaptor.forClass(Long.class);
+        verify(repository).markLate(Mockito.any(LocalDate.class), mark.capture());
+        assertThat(mark.getValue()).isEqualTo(5L);
+        verify(bookRepository).addLate(mark.getValue());
+        verify(customerStatsRepository).addLate(mark.getValue());
+    }
+
+    @Test
+    @DisplayName("Must count the customer of a new loan")
+    public void saveRecordsCustomerLoanTest() {
+        Loan loan = createLoan();
+        when(bookRepository.isAvailable(1L)).thenReturn(true);
+        when(repository.save(loan)).thenAnswer(invocation -> {
+            loan.setId(5L);
+            return loan;
+        });
+        when(bookRepository.markLoaned(1L, 5L)).thenReturn(1);
+
+        service.save(loan);
+
+        verify(customerStatsRepository).recordLoan(loan.getCustomer());
+    }
+
+    static LoanRepository.LoanState loanState(Long id, Boolean returned, Long bookId) {
+        LoanRepository.LoanState state = Mockito.mock(LoanRepository.LoanState.class);
+        when(state.getId()).thenReturn(id);
+        when(state.getReturned()).thenReturn(returned);
+        when(state.getBookId()).thenReturn(bookId);
+        return state;
+    }
+
+    static LoanRepository.LateLoan lateLoan(Long id) {
+        LoanRepository.LateLoan loan = Mockito.mock(LoanRepository.LateLoan.class);
+        when(loan.getId()).thenReturn(id);
+        when(loan.getCostumerEmail()).thenReturn("customer" + id + "@email.com");
+        return loan;
+    }
+}
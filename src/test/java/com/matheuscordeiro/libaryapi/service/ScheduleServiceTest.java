@@ -0,0 +1,77 @@
+package com.matheuscordeiro.libaryapi.service;
+
+import com.matheuscordeiro.libaryapi.model.repository.LoanRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.matheuscordeiro.libaryapi.service.LoanServiceTest.lateLoan;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ScheduleServiceTest {
+    ScheduleService service;
+    MeterRegistry meterRegistry;
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    EmailService emailService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.service = new ScheduleService(loanService, emailService, meterRegistry);
+        ReflectionTestUtils.setField(service, "message", "late");
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        doAnswer(invocation -> {
+            Consumer<List<LoanRepository.LateLoan>> consumer = invocation.getArgument(1);
+            consumer.accept(Arrays.asList(lateLoan(1L), lateLoan(2L)));
+            consumer.accept(Arrays.asList(lateLoan(3L), lateLoan(4L)));
+            consumer.accept(Collections.singletonList(lateLoan(5L)));
+            return null;
+        }).when(loanService).forEachLateLoanChunk(Mockito.eq(2), Mockito.any(Consumer.class));
+    }
+
+    @Test
+    @DisplayName("Must send one mail per chunk of late loans and record the run")
+    public void sendMailToLateLoansTest() {
+        service.sendMailToLateLoans();
+
+        verify(emailService).sendMail("late", Arrays.asList("customer1@email.com", "customer2@email.com"));
+        verify(emailService).sendMail("late", Arrays.asList("customer3@email.com", "customer4@email.com"));
+        verify(emailService).sendMail("late", Collections.singletonList("customer5@email.com"));
+        assertThat(meterRegistry.counter("library.lateloans.loans").count()).isEqualTo(5);
+        assertThat(meterRegistry.counter("library.lateloans.chunks").count()).isEqualTo(3);
+        assertThat(meterRegistry.timer("library.lateloans.run").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Must keep going when a chunk fails to be sent")
+    public void failedChunkTest() {
+        doThrow(new IllegalStateException("smtp down"))
+                .when(emailService).sendMail("late", Arrays.asList("customer1@email.com", "customer2@email.com"));
+
+        service.sendMailToLateLoans();
+
+        verify(emailService, times(3)).sendMail(Mockito.eq("late"), Mockito.anyList());
+        assertThat(meterRegistry.counter("library.lateloans.chunks.failed").count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,105 @@
+package com.matheuscordeiro.libaryapi.service.index;
+
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+public class BookSearchIndexTest {
+    BookRepository repository;
+    BookSearchIndex index;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        this.repository = Mockito.mock(BookRepository.class);
+        this.index = new BookSearchIndex(repository, 2);
+        doAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(Book.builder().id(1L).title("As Aventuras de Pi").author("Yann Martel").build());
+            consumer.accept(Book.builder().id(2L).title("O Senhor dos Anéis").author("Tolkien").build());
+            consumer.accept(Book.builder().id(3L).title("O Hobbit").author("Tolkien").build());
+            return null;
+        }).when(repository).forEachInOrder(any(Consumer.class));
+    }
+
+    @Test
+    @DisplayName("Must not answer before the index is built")
+    public void notReadyTest() {
+        assertThat(index.search("hobbit", null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Must match words inside title words ignoring case and accents")
+    public void searchTitleTest() {
+        index.rebuild();
+
+        assertThat(index.search("ANEIS", null)).contains(Set.of(2L));
+        assertThat(index.search("obbi", null)).contains(Set.of(3L));
+        assertThat(index.search("senhor hobbit", null)).contains(Set.of());
+    }
+
+    @Test
+    @DisplayName("Must intersect title and author matches")
+    public void searchTitleAndAuthorTest() {
+        index.rebuild();
+
+        assertThat(index.search("o", "tolkien")).contains(Set.of(2L, 3L));
+        assertThat(index.search("hobbit", "martel")).contains(Set.of());
+    }
+
+    @Test
+    @DisplayName("Must match words in the middle and at the end of field words")
+    public void searchInsideWordTest() {
+        index.rebuild();
+
+        assertThat(index.search("bbi", null)).contains(Set.of(3L));
+        assertThat(index.search("obbit", null)).contains(Set.of(3L));
+        assertThat(index.search(null, "kie")).contains(Set.of(2L, 3L));
+        assertThat(index.search("xyz", null)).contains(Set.of());
+    }
+
+    @Test
+    @DisplayName("Must give up on terms matching more books than the candidate limit")
+    public void broadTermTest() {
+        index.rebuild();
+
+        Optional<Set<Long>> result = index.search("s", null);
+
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Must follow updates and removals")
+    public void putAndRemoveTest() {
+        index.rebuild();
+
+        index.put(Book.builder().id(3L).title("O Silmarillion").author("Tolkien").build());
+        index.remove(1L);
+
+        assertThat(index.search("hobbit", null)).contains(Set.of());
+        assertThat(index.search("silmarillion", null)).contains(Set.of(3L));
+        assertThat(index.search(null, "martel")).contains(Set.of());
+    }
+
+    @Test
+    @DisplayName("Must keep a book under the words its new title shares with the old one")
+    public void putKeepsSharedWordsTest() {
+        index.rebuild();
+
+        index.put(Book.builder().id(3L).title("O Hobbit Anotado").author("Tolkien").build());
+
+        assertThat(index.search("hobbit", null)).contains(Set.of(3L));
+        assertThat(index.search("anotado", "tolkien")).contains(Set.of(3L));
+    }
+}
@@ -0,0 +1,54 @@
+package com.matheuscordeiro.libaryapi.service.index;
+
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+public class IsbnIndexTest {
+    BookRepository repository;
+    IsbnIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        this.repository = Mockito.mock(BookRepository.class);
+        this.index = new IsbnIndex(repository, 10000, 0.01);
+    }
+
+    @Test
+    @DisplayName("Must answer maybe for every isbn before the index is built")
+    public void notReadyTest() {
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.mightContain("123")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Must contain every registered and added isbn after a rebuild")
+    public void rebuildTest() {
+        when(repository.count()).thenReturn(5000L);
+        when(repository.streamAllIsbns()).thenReturn(IntStream.range(0, 5000).mapToObj(i -> "isbn-" + i));
+        index.rebuild();
+        index.add("added");
+        assertThat(index.isReady()).isTrue();
+        assertThat(IntStream.range(0, 5000).allMatch(i -> index.mightContain("isbn-" + i))).isTrue();
+        assertThat(index.mightContain("added")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Must keep false positives near the configured probability")
+    public void falsePositiveRateTest() {
+        when(repository.count()).thenReturn(5000L);
+        when(repository.streamAllIsbns()).thenReturn(IntStream.range(0, 10000).mapToObj(i -> "isbn-" + i));
+        index.rebuild();
+        long falsePositives = IntStream.range(0, 10000)
+                .filter(i -> index.mightContain("missing-" + i))
+                .count();
+        assertThat(falsePositives).isLessThan(300);
+    }
+}
@@ -0,0 +1,28 @@
+package com.matheuscordeiro.libaryapi.service.lock;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StripedLockTest {
+
+    @Test
+    @DisplayName("Must round the stripes up to a power of two")
+    public void sizeTest() {
+        assertThat(new StripedLock(1).size()).isEqualTo(1);
+        assertThat(new StripedLock(100).size()).isEqualTo(128);
+        assertThat(new StripedLock(256).size()).isEqualTo(256);
+    }
+
+    @Test
+    @DisplayName("Must give the same lock to equal keys and spread consecutive ids")
+    public void getTest() {
+        StripedLock locks = new StripedLock(64);
+
+        assertThat(locks.get(10L)).isSameAs(locks.get(10L));
+        assertThat(LongStream.range(0, 64).mapToObj(locks::get).distinct().count()).isGreaterThan(32);
+    }
+}
@@ -0,0 +1,95 @@
+package com.matheuscordeiro.libaryapi.service.mail;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import javax.mail.internet.MimeMessage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BulkMailSenderTest {
+    GreenMail greenMail;
+    MeterRegistry meterRegistry;
+    BulkMailSender sender;
+
+    @BeforeEach
+    public void setUp() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP);
+        greenMail.start();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        meterRegistry = new SimpleMeterRegistry();
+        sender = new BulkMailSender(mailSender, meterRegistry, 2, 3);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        sender.shutdown();
+        greenMail.stop();
+    }
+
+    @Test
+    @DisplayName("Must deliver one message per recipient over the pooled connections")
+    public void sendAllTest() throws Exception {
+        List<SimpleMailMessage> messages = messages(10);
+
+        List<Exception> errors = sender.sendAll(messages);
+
+        assertThat(errors).hasSize(10).containsOnlyNulls();
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(10);
+        assertThat(Arrays.stream(received)).allMatch(message -> {
+            try {
+                return message.getAllRecipients().length == 1;
+            } catch (Exception e) {
+                return false;
+            }
+        });
+        assertThat(meterRegistry.get("library.mail.send").timer().count()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Must keep reusing the pool across batches")
+    public void reuseTest() {
+        assertThat(sender.sendAll(messages(4))).containsOnlyNulls();
+        assertThat(sender.sendAll(messages(4))).containsOnlyNulls();
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(8);
+    }
+
+    @Test
+    @DisplayName("Must report an error for every message when the server is down")
+    public void serverDownTest() {
+        greenMail.stop();
+
+        List<Exception> errors = sender.sendAll(messages(3));
+
+        assertThat(errors).hasSize(3).doesNotContainNull();
+    }
+
+    private static List<SimpleMailMessage> messages(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> {
+                    SimpleMailMessage message = new SimpleMailMessage();
+                    message.setFrom("mail@library-api.com");
+                    message.setTo("customer" + i + "@email.com");
+                    message.setSubject("Book with late loan");
+                    message.setText("Late book");
+                    return message;
+                })
+                .collect(Collectors.toList());
+    }
+}
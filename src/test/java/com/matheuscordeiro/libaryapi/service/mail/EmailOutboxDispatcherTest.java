@@ -0,0 +1,127 @@
+package com.matheuscordeiro.libaryapi.service.mail;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.matheuscordeiro.libaryapi.model.entity.EmailOutbox;
+import com.matheuscordeiro.libaryapi.model.repository.EmailOutboxRepository;
+import com.matheuscordeiro.libaryapi.service.EmailService;
+import com.matheuscordeiro.libaryapi.service.impl.EmailServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.mail.internet.MimeMessage;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import({EmailServiceImpl.class, EmailOutboxDispatcher.class, BulkMailSender.class, EmailOutboxDispatcherTest.Config.class})
+@TestPropertySource(properties = {
+        "application.mail.outbox.max-attempts=2",
+        "application.mail.outbox.poll-interval=3600000"
+})
+public class EmailOutboxDispatcherTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        public JavaMailSenderImpl javaMailSender() {
+            JavaMailSenderImpl sender = new JavaMailSenderImpl();
+            sender.setHost("localhost");
+            sender.setPort(ServerSetupTest.SMTP.getPort());
+            return sender;
+        }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    EmailService emailService;
+
+    @Autowired
+    EmailOutboxDispatcher dispatcher;
+
+    @Autowired
+    EmailOutboxRepository repository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    GreenMail greenMail;
+
+    @BeforeEach
+    public void setUp() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP);
+        greenMail.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        greenMail.stop();
+    }
+
+    @Test
+    @DisplayName("Must only enqueue the mails until the dispatcher delivers them one per recipient")
+    public void dispatchTest() throws Exception {
+        emailService.sendMail("Late book", Arrays.asList("first@email.com", " ", "second@email.com", "first@email.com"));
+
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+        assertThat(repository.findAll()).hasSize(2)
+                .allMatch(mail -> mail.getStatus() == EmailOutbox.Status.PENDING);
+
+        dispatcher.dispatch();
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(2);
+        assertThat(received[0].getAllRecipients()).hasSize(1);
+        assertThat(repository.findAll())
+                .allMatch(mail -> mail.getStatus() == EmailOutbox.Status.SENT && mail.getSentAt() != null);
+        assertThat(meterRegistry.get("library.mail.send").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Must back off when the SMTP server is down and give up after the last attempt")
+    public void retryTest() {
+        greenMail.stop();
+        emailService.sendMail("Late book", Collections.singletonList("first@email.com"));
+
+        dispatcher.dispatch();
+
+        EmailOutbox mail = repository.findAll().get(0);
+        assertThat(mail.getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+        assertThat(mail.getAttempts()).isEqualTo(1);
+        assertThat(mail.getNextAttemptAt()).isAfter(LocalDateTime.now());
+        assertThat(mail.getLastError()).isNotBlank();
+
+        mail.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        repository.saveAndFlush(mail);
+        dispatcher.dispatch();
+
+        List<EmailOutbox> mails = repository.findAll();
+        assertThat(mails.get(0).getStatus()).isEqualTo(EmailOutbox.Status.FAILED);
+        assertThat(mails.get(0).getAttempts()).isEqualTo(2);
+        assertThat(meterRegistry.counter("library.mail.outbox.failed").count()).isEqualTo(1);
+    }
+}
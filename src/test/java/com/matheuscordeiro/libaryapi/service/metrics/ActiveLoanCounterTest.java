@@ -0,0 +1,56 @@
+package com.matheuscordeiro.libaryapi.service.metrics;
+
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+public class ActiveLoanCounterTest {
+    BookRepository bookRepository;
+    ActiveLoanCounter counter;
+
+    @BeforeEach
+    public void setUp() {
+        bookRepository = Mockito.mock(BookRepository.class);
+        counter = new ActiveLoanCounter(bookRepository);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @DisplayName("Must start from the books on loan and follow the changes")
+    public void resyncAndAddTest() {
+        when(bookRepository.countByActiveLoanIdIsNotNull()).thenReturn(5L);
+
+        counter.resync();
+        counter.add(2);
+        counter.addAfterCommit(-1);
+
+        assertThat(counter.get()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Must only count a change made in a transaction once it commits")
+    public void afterCommitTest() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        counter.addAfterCommit(1);
+        counter.addAfterCommit(1);
+
+        assertThat(counter.get()).isZero();
+        TransactionSynchronizationManager.getSynchronizations().get(0).afterCommit();
+        TransactionSynchronizationManager.getSynchronizations().get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertThat(counter.get()).isEqualTo(1);
+    }
+}
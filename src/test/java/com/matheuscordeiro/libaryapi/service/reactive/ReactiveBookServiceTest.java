@@ -0,0 +1,88 @@
+package com.matheuscordeiro.libaryapi.service.reactive;
+
+import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.repository.BookRepository;
+import com.matheuscordeiro.libaryapi.model.repository.reactive.ReactiveBookRepository;
+import com.matheuscordeiro.libaryapi.model.repository.reactive.ReactiveLoanRepository;
+import com.matheuscordeiro.libaryapi.service.index.BookSearchIndex;
+import com.matheuscordeiro.libaryapi.service.index.IsbnIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ReactiveBookServiceTest {
+    ReactiveBookRepository repository;
+    IsbnIndex isbnIndex;
+    BookSearchIndex searchIndex;
+    ReactiveBookService service;
+
+    @BeforeEach
+    public void setUp() {
+        repository = Mockito.mock(ReactiveBookRepository.class);
+        isbnIndex = Mockito.mock(IsbnIndex.class);
+        searchIndex = new BookSearchIndex(Mockito.mock(BookRepository.class), 1000);
+        searchIndex.rebuild();
+        service = new ReactiveBookService(repository, Mockito.mock(ReactiveLoanRepository.class), isbnIndex, searchIndex);
+    }
+
+    @Test
+    @DisplayName("Must index a saved book and skip the duplicate check for isbns the index rules out")
+    public void saveIndexesTest() {
+        Book book = Book.builder().title("O Hobbit").author("Tolkien").isbn("123").build();
+        Book saved = book.toBuilder().id(1L).build();
+        when(isbnIndex.mightContain("123")).thenReturn(false);
+        when(repository.insert(book)).thenReturn(Mono.just(saved));
+
+        StepVerifier.create(service.save(book))
+                .expectNext(saved)
+                .verifyComplete();
+        verify(repository, never()).existsByIsbn("123");
+        verify(isbnIndex).add("123");
+        assertThat(searchIndex.search("hobbit", null)).contains(Set.of(1L));
+    }
+
+    @Test
+    @DisplayName("Must bump the version and reindex an updated book")
+    public void updateTest() {
+        Book book = Book.builder().id(1L).title("O Hobbit").author("Tolkien").isbn("123").version(3L).build();
+        when(repository.update(book)).thenReturn(Mono.just(1));
+
+        StepVerifier.create(service.update(book))
+                .expectNextMatches(updated -> updated.getVersion() == 4L)
+                .verifyComplete();
+        assertThat(searchIndex.search("hobbit", null)).contains(Set.of(1L));
+    }
+
+    @Test
+    @DisplayName("Must fail an update of a book another write changed first")
+    public void concurrentUpdateTest() {
+        Book book = Book.builder().id(1L).title("O Hobbit").author("Tolkien").isbn("123").version(3L).build();
+        when(repository.update(book)).thenReturn(Mono.just(0));
+
+        StepVerifier.create(service.update(book))
+                .expectErrorMatches(e -> e instanceof BusinessException && e.getMessage().equals("Book was changed concurrently."))
+                .verify();
+        assertThat(searchIndex.search("hobbit", null)).contains(Set.of());
+    }
+
+    @Test
+    @DisplayName("Must drop a deleted book from the search index")
+    public void deleteTest() {
+        Book book = Book.builder().id(1L).title("O Hobbit").author("Tolkien").isbn("123").build();
+        searchIndex.put(book);
+        when(repository.deleteById(1L)).thenReturn(Mono.just(1));
+
+        StepVerifier.create(service.delete(book))
+                .verifyComplete();
+        assertThat(searchIndex.search("hobbit", null)).contains(Set.of());
+    }
+}
@@ -0,0 +1,111 @@
+package com.matheuscordeiro.libaryapi.service.reactive;
+
+import com.matheuscordeiro.libaryapi.exception.BusinessException;
+import com.matheuscordeiro.libaryapi.exception.LoanAlreadyReturnedException;
+import com.matheuscordeiro.libaryapi.model.entity.Book;
+import com.matheuscordeiro.libaryapi.model.entity.Loan;
+import com.matheuscordeiro.libaryapi.model.repository.reactive.ReactiveBookRepository;
+import com.matheuscordeiro.libaryapi.model.repository.reactive.ReactiveLoanRepository;
+import com.matheuscordeiro.libaryapi.service.metrics.ActiveLoanCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+
+import static org.mockito.Mockito.*;
+
+public class ReactiveLoanServiceTest {
+    ReactiveLoanRepository repository;
+    ReactiveBookRepository bookRepository;
+    ReactiveLoanService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        repository = Mockito.mock(ReactiveLoanRepository.class);
+        bookRepository = Mockito.mock(ReactiveBookRepository.class);
+        TransactionalOperator transactionalOperator = Mockito.mock(TransactionalOperator.class);
+        when(transactionalOperator.transactional(Mockito.any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        service = new ReactiveLoanService(repository, bookRepository, transactionalOperator, Mockito.mock(ActiveLoanCounter.class));
+    }
+
+    @Test
+    @DisplayName("Must save a loan and hand it the book")
+    public void saveLoanTest() {
+        Loan loan = createLoan(null);
+        Loan saved = createLoan(null);
+        saved.setId(7L);
+        when(repository.insert(loan)).thenReturn(Mono.just(saved));
+        when(bookRepository.markLoaned(1L, 7L)).thenReturn(Mono.just(1));
+        when(repository.recordCustomerLoan("Junior")).thenReturn(Mono.just(1));
+
+        StepVerifier.create(service.save(loan))
+                .expectNextMatches(result -> result.getId().equals(7L))
+                .verifyComplete();
+        verify(repository).recordCustomerLoan("Junior");
+    }
+
+    @Test
+    @DisplayName("Must reject a loan of a book that is already loaned without inserting it")
+    public void loanedBookSaveTest() {
+        StepVerifier.create(service.save(createLoan(3L)))
+                .expectErrorMatches(e -> e instanceof BusinessException && e.getMessage().equals("Book already loaned"))
+                .verify();
+        verify(repository, never()).insert(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Must fail the loan when another loan takes the book first")
+    public void lostRaceSaveTest() {
+        Loan loan = createLoan(null);
+        Loan saved = createLoan(null);
+        saved.setId(7L);
+        when(repository.insert(loan)).thenReturn(Mono.just(saved));
+        when(bookRepository.markLoaned(1L, 7L)).thenReturn(Mono.just(0));
+
+        StepVerifier.create(service.save(loan))
+                .expectError(BusinessException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Must reject reopening a returned loan, so the book's next loan is its only open one")
+    public void reopenReturnedLoanTest() {
+        Loan first = createLoan(null);
+        first.setId(7L);
+        Loan second = createLoan(null);
+        Loan savedSecond = createLoan(null);
+        savedSecond.setId(8L);
+        when(repository.insert(second)).thenReturn(Mono.just(savedSecond));
+        when(bookRepository.markLoaned(1L, 8L)).thenReturn(Mono.just(1));
+        when(repository.recordCustomerLoan("Junior")).thenReturn(Mono.just(1));
+        when(repository.markReturned(7L)).thenReturn(Mono.just(1));
+        when(repository.recordReturn(Mockito.eq(7L), Mockito.any(LocalDate.class))).thenReturn(Mono.just(1));
+        when(bookRepository.release(1L, 7L)).thenReturn(Mono.just(1));
+        when(bookRepository.touchLoans(1L)).thenReturn(Mono.just(1));
+
+        StepVerifier.create(service.returnBook(first, true))
+                .expectNextMatches(Loan::getReturned)
+                .verifyComplete();
+        StepVerifier.create(service.returnBook(first, false))
+                .expectError(LoanAlreadyReturnedException.class)
+                .verify();
+        StepVerifier.create(service.save(second))
+                .expectNextMatches(result -> result.getId().equals(8L))
+                .verifyComplete();
+        verify(bookRepository, times(1)).release(1L, 7L);
+    }
+
+    private static Loan createLoan(Long activeLoanId) {
+        return Loan.builder()
+                .book(Book.builder().id(1L).activeLoanId(activeLoanId).build())
+                .customer("Junior")
+                .loanDate(LocalDate.now())
+                .build();
+    }
+}